@@ -0,0 +1,60 @@
+package com.vg.raiddataparser.benchmark;
+
+import com.vg.raiddataparser.TestData;
+import com.vg.raiddataparser.parser.data.HeroTypeData;
+import com.vg.raiddataparser.parser.data.SkillTypeData;
+import com.vg.raiddataparser.parser.data.StaticData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Skill resolution (skill IDs of every champion) and localization lookups (every name and description key)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+
+    private StaticData staticData;
+    private String[] localizationKeys;
+
+    @Setup
+    public void setUp() throws IOException {
+        staticData = TestData.staticData();
+
+        List<String> keys = new ArrayList<>();
+        for (HeroTypeData hero : staticData.getHeroTypes()) {
+            keys.add(hero.getNameKey());
+            for (int skillId : hero.getSkillTypeIds()) {
+                SkillTypeData skill = staticData.getSkillType(skillId);
+                keys.add(skill.getNameKey());
+                keys.add(skill.getDescriptionKey());
+            }
+        }
+        localizationKeys = keys.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void skillResolution(Blackhole blackhole) {
+        for (HeroTypeData hero : staticData.getHeroTypes()) {
+            for (int skillId : hero.getSkillTypeIds()) {
+                blackhole.consume(staticData.getSkillType(skillId));
+            }
+        }
+    }
+
+    @Benchmark
+    public void localizationLookup(Blackhole blackhole) {
+        for (String key : localizationKeys) {
+            blackhole.consume(staticData.getLocalizedText(key));
+        }
+    }
+}
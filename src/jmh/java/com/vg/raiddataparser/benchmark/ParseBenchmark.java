@@ -0,0 +1,41 @@
+package com.vg.raiddataparser.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vg.raiddataparser.TestData;
+import com.vg.raiddataparser.parser.data.StaticData;
+import com.vg.raiddataparser.parser.data.StaticDataReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full static_data.json parsing, streaming and tree ingest modes
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = TestData.staticDataBytes();
+    }
+
+    @Benchmark
+    public StaticData streamingIngest() throws IOException {
+        return new StaticDataReader().read(new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    public StaticData treeIngest() throws IOException {
+        return StaticData.fromNode(mapper.readTree(new ByteArrayInputStream(json)));
+    }
+}
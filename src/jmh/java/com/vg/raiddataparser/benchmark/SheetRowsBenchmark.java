@@ -0,0 +1,67 @@
+package com.vg.raiddataparser.benchmark;
+
+import com.vg.raiddataparser.TestData;
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+import com.vg.raiddataparser.sheet.ChampionSheet;
+import com.vg.raiddataparser.sheet.MultiplierSheet;
+import com.vg.raiddataparser.sheet.RaidSheet;
+import com.vg.raiddataparser.sheet.SkillSheet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RaidSheet.buildRows row building of the Multipliers, Champions and Skills sheets (all champions)
+ * Rows are not added to the sheets, so that nothing is kept from one invocation to the next.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SheetRowsBenchmark {
+
+    private final RaidSheet multiplierSheet = new MultiplierSheet();
+    private final RaidSheet championSheet = new ChampionSheet();
+    private final RaidSheet skillSheet = new SkillSheet();
+
+    private List<Champion> champions;
+    private List<Skill> skills;
+
+    @Setup
+    public void setUp() throws IOException {
+        champions = TestData.champions(TestData.staticData());
+        skills = new ArrayList<>();
+        for (Champion champion : champions) {
+            skills.addAll(champion.getSkills());
+        }
+    }
+
+    @Benchmark
+    public int multiplierRows() {
+        return buildRows(multiplierSheet, champions);
+    }
+
+    @Benchmark
+    public int championRows() {
+        return buildRows(championSheet, champions);
+    }
+
+    @Benchmark
+    public int skillRows() {
+        return buildRows(skillSheet, skills);
+    }
+
+    private static int buildRows(RaidSheet sheet, List<?> objects) {
+        int rows = 0;
+        for (Object o : objects) {
+            rows += sheet.buildRows(o).size();
+        }
+        return rows;
+    }
+}
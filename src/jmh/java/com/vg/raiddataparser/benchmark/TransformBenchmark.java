@@ -0,0 +1,48 @@
+package com.vg.raiddataparser.benchmark;
+
+import com.vg.raiddataparser.TestData;
+import com.vg.raiddataparser.parser.ChampionTransformer;
+import com.vg.raiddataparser.parser.data.StaticData;
+import com.vg.raiddataparser.sheet.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Champion.Builder / Skill.Builder construction of all champions, without and with their sheet rows
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformBenchmark {
+
+    private ChampionTransformer builders;
+    private ChampionTransformer buildersAndRows;
+
+    @Setup
+    public void setUp() throws IOException {
+        StaticData staticData = TestData.staticData();
+        RaidSheet multiplierSheet = new MultiplierSheet();
+        RaidSheet championSheet = new ChampionSheet();
+        RaidSheet skillSheet = new SkillSheet();
+
+        builders = new ChampionTransformer(staticData, TestData::withoutRows);
+        buildersAndRows = new ChampionTransformer(staticData,
+                champion -> ChampionRows.create(champion, multiplierSheet, championSheet, skillSheet));
+    }
+
+    @Benchmark
+    public List<ChampionRows> buildChampionsAndSkills() {
+        return builders.transform();
+    }
+
+    @Benchmark
+    public List<ChampionRows> buildChampionsSkillsAndRows() {
+        return buildersAndRows.transform();
+    }
+}
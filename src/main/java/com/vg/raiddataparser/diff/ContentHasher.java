@@ -0,0 +1,133 @@
+package com.vg.raiddataparser.diff;
+
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Stable content hash of champions, skills and sheet rows (64-bit FNV-1a)
+ * Same value across runs and JVMs, so it can be persisted and compared with the next refresh.
+ */
+public final class ContentHasher {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long hash = FNV_OFFSET_BASIS;
+
+    private ContentHasher() {}
+
+    /**
+     * Hash of the champion's values and of its skill IDs (a champion with a new or removed skill is modified)
+     *
+     * @param champion Champion
+     * @return content hash
+     */
+    public static long hash(Champion champion) {
+        ContentHasher hasher = new ContentHasher()
+                .add(champion.getId())
+                .add(champion.getName())
+                .add(champion.getAffinity())
+                .add(champion.getRole())
+                .add(champion.getFaction())
+                .add(champion.getRarity())
+                .add(champion.getHealth())
+                .add(champion.getAttack())
+                .add(champion.getDefense())
+                .add(champion.getSpeed())
+                .add(champion.getResistance())
+                .add(champion.getAccuracy())
+                .add(champion.getCriticalChance())
+                .add(champion.getCriticalDamage())
+                .add(champion.getCriticalHeal());
+
+        if (champion.getSkills() != null) {
+            hasher.add(champion.getSkills().size());
+            for (Skill skill : champion.getSkills()) {
+                hasher.add(skill.getId());
+            }
+        }
+        return hasher.hash;
+    }
+
+    /**
+     * Hash of the skill's values and of its champion ID
+     *
+     * @param skill Skill
+     * @return content hash
+     */
+    public static long hash(Skill skill) {
+        return new ContentHasher()
+                .add(skill.getId())
+                .add(skill.getRevision())
+                .add(skill.getName())
+                .add(skill.getDescription())
+                .add(skill.getCooldown())
+                .add(skill.getMultiplierFormula())
+                .add(skill.getVisibility())
+                .add(skill.getGroup())
+                .add(skill.getChampion() == null ? 0 : skill.getChampion().getId())
+                .hash;
+    }
+
+    /**
+     * Hash of a sheet row (cell values and their types)
+     *
+     * @param row row values, can be null (empty row)
+     * @return content hash
+     */
+    public static long hash(List<?> row) {
+        ContentHasher hasher = new ContentHasher();
+        if (row == null) {
+            return hasher.add(-1).hash;
+        }
+
+        hasher.add(row.size());
+        for (Object value : row) {
+            hasher.add(value == null ? null : value.getClass().getSimpleName() + ':' + value);
+        }
+        return hasher.hash;
+    }
+
+    /**
+     * Hash of a sequence of content hashes (e.g. version of a dataset)
+     *
+     * @param hashes content hashes, in a stable order
+     * @return content hash
+     */
+    public static long hash(long[] hashes) {
+        ContentHasher hasher = new ContentHasher().add(hashes.length);
+        for (long value : hashes) {
+            hasher.add((int) value).add((int) (value >>> 32));
+        }
+        return hasher.hash;
+    }
+
+    private ContentHasher add(int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            addByte((byte) (value >>> shift));
+        }
+        return this;
+    }
+
+    private ContentHasher add(String value) {
+        // Length prefix so that null, "" and consecutive strings hash differently
+        if (value == null) {
+            return add(-1);
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        add(bytes.length);
+        for (byte b : bytes) {
+            addByte(b);
+        }
+        return this;
+    }
+
+    private void addByte(byte b) {
+        hash ^= b & 0xFF;
+        hash *= FNV_PRIME;
+    }
+}
@@ -0,0 +1,131 @@
+package com.vg.raiddataparser.diff;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Content hashes of a set of entities, by ID
+ * Stored as parallel arrays sorted by ID: compact, and two snapshots are compared with one merge pass.
+ */
+public class ContentHashes {
+
+    private final int[] ids;
+    private final long[] hashes;
+
+    private ContentHashes(int[] ids, long[] hashes) {
+        this.ids = ids;
+        this.hashes = hashes;
+    }
+
+    public static ContentHashes empty() {
+        return new ContentHashes(new int[0], new long[0]);
+    }
+
+    public int size() { return ids.length; }
+
+    public int getId(int index) { return ids[index]; }
+
+    public long getHash(int index) { return hashes[index]; }
+
+    /**
+     * @param id ID of the entity
+     * @return index of the ID, negative if not found (see Arrays.binarySearch())
+     */
+    public int indexOf(int id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    /**
+     * @param id ID of the entity
+     * @return content hash of the entity
+     * @throws IllegalArgumentException if there is no hash for the ID
+     */
+    public long getHashById(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            throw new IllegalArgumentException("No content hash for ID " + id);
+        }
+        return hashes[index];
+    }
+
+    /**
+     * @return content hashes, in ID order
+     */
+    long[] getHashes() {
+        return hashes;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            out.writeInt(ids[i]);
+            out.writeLong(hashes[i]);
+        }
+    }
+
+    static ContentHashes read(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid content hashes size: " + size);
+        }
+
+        Builder builder = new Builder(size);
+        for (int i = 0; i < size; i++) {
+            builder.add(in.readInt(), in.readLong());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects (ID, hash) pairs in any order, the first hash added for an ID is kept
+     */
+    public static class Builder {
+
+        private int[] ids;
+        private long[] hashes;
+        private int size;
+
+        public Builder() {
+            this(64);
+        }
+
+        public Builder(int expectedSize) {
+            ids = new int[Math.max(expectedSize, 1)];
+            hashes = new long[ids.length];
+        }
+
+        public Builder add(int id, long hash) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                hashes = Arrays.copyOf(hashes, size * 2);
+            }
+            ids[size] = id;
+            hashes[size] = hash;
+            size++;
+            return this;
+        }
+
+        public ContentHashes build() {
+            // Sort by ID (stable: index order kept for equal IDs), then drop duplicate IDs
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(ids[a], ids[b]));
+
+            int[] sortedIds = new int[size];
+            long[] sortedHashes = new long[size];
+            int count = 0;
+            for (int index : order) {
+                if (count == 0 || sortedIds[count - 1] != ids[index]) {
+                    sortedIds[count] = ids[index];
+                    sortedHashes[count] = hashes[index];
+                    count++;
+                }
+            }
+            return new ContentHashes(Arrays.copyOf(sortedIds, count), Arrays.copyOf(sortedHashes, count));
+        }
+    }
+}
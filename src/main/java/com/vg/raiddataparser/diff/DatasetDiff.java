@@ -0,0 +1,66 @@
+package com.vg.raiddataparser.diff;
+
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+
+import java.util.Arrays;
+
+/**
+ * Changes of champions and skills since the previous refresh
+ */
+public class DatasetDiff {
+
+    private final EntityDiff<Champion> champions;
+    private final EntityDiff<Skill> skills;
+    private final ContentHashes championHashes;
+    private final ContentHashes skillHashes;
+    private final long version;
+
+    DatasetDiff(EntityDiff<Champion> champions,
+            EntityDiff<Skill> skills,
+            ContentHashes championHashes,
+            ContentHashes skillHashes) {
+        this.champions = champions;
+        this.skills = skills;
+        this.championHashes = championHashes;
+        this.skillHashes = skillHashes;
+        this.version = version(championHashes, skillHashes);
+    }
+
+    /**
+     * Dataset version: hash of all the content hashes (same dataset, same version)
+     */
+    private static long version(ContentHashes championHashes, ContentHashes skillHashes) {
+        long[] hashes = Arrays.copyOf(championHashes.getHashes(), championHashes.size() + skillHashes.size());
+        System.arraycopy(skillHashes.getHashes(), 0, hashes, championHashes.size(), skillHashes.size());
+        return ContentHasher.hash(hashes);
+    }
+
+    public EntityDiff<Champion> getChampions() { return champions; }
+
+    public EntityDiff<Skill> getSkills() { return skills; }
+
+    /**
+     * @return content hashes of the new champions snapshot
+     */
+    public ContentHashes getChampionHashes() { return championHashes; }
+
+    /**
+     * @return content hashes of the new skills snapshot
+     */
+    public ContentHashes getSkillHashes() { return skillHashes; }
+
+    /**
+     * @return version of the new snapshot, as a hexadecimal string
+     */
+    public String getVersion() { return Long.toHexString(version); }
+
+    public boolean isEmpty() {
+        return champions.isEmpty() && skills.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "champions: " + champions + "; skills: " + skills;
+    }
+}
@@ -0,0 +1,150 @@
+package com.vg.raiddataparser.diff;
+
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+import com.vg.raiddataparser.util.IntObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Compare champions and skills with the snapshot of the previous refresh
+ * The previous snapshot is the content hash of each champion and skill, persisted in a file by save(). A file that
+ * can't be read (e.g. written by another version) is treated as no previous snapshot, and replaced by the next save().
+ */
+public class DiffEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiffEngine.class.getName());
+
+    private static final int FILE_MAGIC = 0x52444348; // "RDCH"
+    private static final int FILE_VERSION = 1;
+
+    private final Path hashesFile;
+
+    /**
+     * @param hashesFile file of the content hashes of the previous refresh
+     */
+    public DiffEngine(Path hashesFile) {
+        this.hashesFile = hashesFile;
+    }
+
+    /**
+     * Compare the champions and their skills with the previous snapshot
+     * A skill shared by several champions is compared once (first champion).
+     *
+     * @param champions champions with their skills
+     * @return added, modified and removed champions and skills (all added if the previous snapshot can't be read)
+     */
+    public DatasetDiff diff(List<Champion> champions) {
+        ContentHashes[] previous = load();
+
+        IntObjectMap<Champion> championsById = new IntObjectMap<>(champions.size());
+        IntObjectMap<Skill> skillsById = new IntObjectMap<>(champions.size() * 4);
+        ContentHashes.Builder championHashes = new ContentHashes.Builder(champions.size());
+        ContentHashes.Builder skillHashes = new ContentHashes.Builder(champions.size() * 4);
+
+        for (Champion champion : champions) {
+            if (championsById.putIfAbsent(champion.getId(), champion) == null) {
+                championHashes.add(champion.getId(), ContentHasher.hash(champion));
+            }
+            for (Skill skill : champion.getSkills()) {
+                if (skillsById.putIfAbsent(skill.getId(), skill) == null) {
+                    skillHashes.add(skill.getId(), ContentHasher.hash(skill));
+                }
+            }
+        }
+
+        ContentHashes currentChampions = championHashes.build();
+        ContentHashes currentSkills = skillHashes.build();
+
+        DatasetDiff diff = new DatasetDiff(
+                compare(previous[0], currentChampions, championsById),
+                compare(previous[1], currentSkills, skillsById),
+                currentChampions,
+                currentSkills);
+
+        LOGGER.info("Changes since previous refresh: " + diff);
+        return diff;
+    }
+
+    /**
+     * Persist the hashes of the diff's new snapshot (previous snapshot of the next refresh)
+     * Written to a temporary file then moved, so the file is never partially written.
+     *
+     * @param diff diff returned by diff()
+     * @throws IOException when the file can't be written
+     */
+    public void save(DatasetDiff diff) throws IOException {
+        Path parent = hashesFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        Path tempFile = Files.createTempFile(parent, hashesFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                diff.getChampionHashes().write(out);
+                diff.getSkillHashes().write(out);
+            }
+            Files.move(tempFile, hashesFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * @return champion and skill hashes of the previous refresh (empty if there is none or it can't be read)
+     */
+    private ContentHashes[] load() {
+        if (!Files.exists(hashesFile)) {
+            LOGGER.info("No previous snapshot in " + hashesFile.toAbsolutePath());
+            return new ContentHashes[]{ContentHashes.empty(), ContentHashes.empty()};
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(hashesFile)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Unsupported snapshot file " + hashesFile.toAbsolutePath());
+            }
+            return new ContentHashes[]{ContentHashes.read(in), ContentHashes.read(in)};
+        } catch (IOException e) {
+            LOGGER.warn("Previous snapshot can't be read, comparing with an empty snapshot (file replaced on save)", e);
+            return new ContentHashes[]{ContentHashes.empty(), ContentHashes.empty()};
+        }
+    }
+
+    /**
+     * Merge pass over the two snapshots sorted by ID
+     */
+    private static <T> EntityDiff<T> compare(ContentHashes previous, ContentHashes current, IntObjectMap<T> entities) {
+        EntityDiff<T> diff = new EntityDiff<>();
+        int i = 0;
+        int j = 0;
+
+        while (i < previous.size() || j < current.size()) {
+            if (j == current.size() || (i < previous.size() && previous.getId(i) < current.getId(j))) {
+                diff.addRemoved(previous.getId(i), previous.getHash(i));
+                i++;
+            } else if (i == previous.size() || current.getId(j) < previous.getId(i)) {
+                diff.addAdded(current.getId(j), entities.get(current.getId(j)));
+                j++;
+            } else {
+                if (previous.getHash(i) != current.getHash(j)) {
+                    diff.addModified(current.getId(j), entities.get(current.getId(j)));
+                }
+                i++;
+                j++;
+            }
+        }
+        return diff;
+    }
+}
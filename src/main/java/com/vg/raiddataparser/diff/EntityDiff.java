@@ -0,0 +1,53 @@
+package com.vg.raiddataparser.diff;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Entities added, removed and modified between two snapshots, by ID
+ *
+ * @param <T> type of the entities (Champion, Skill)
+ */
+public class EntityDiff<T> {
+
+    private final Map<Integer, T> added = new LinkedHashMap<>();
+    private final Map<Integer, T> modified = new LinkedHashMap<>();
+    private final Map<Integer, Long> removed = new LinkedHashMap<>();
+
+    void addAdded(int id, T entity) {
+        added.put(id, entity);
+    }
+
+    void addModified(int id, T entity) {
+        modified.put(id, entity);
+    }
+
+    void addRemoved(int id, long previousHash) {
+        removed.put(id, previousHash);
+    }
+
+    /**
+     * @return entities of the new snapshot not in the previous one
+     */
+    public Map<Integer, T> getAdded() { return Collections.unmodifiableMap(added); }
+
+    /**
+     * @return entities of the new snapshot with a different content hash
+     */
+    public Map<Integer, T> getModified() { return Collections.unmodifiableMap(modified); }
+
+    /**
+     * @return IDs of the previous snapshot not in the new one, with their previous content hash
+     */
+    public Map<Integer, Long> getRemoved() { return Collections.unmodifiableMap(removed); }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && modified.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return added.size() + " added, " + modified.size() + " modified, " + removed.size() + " removed";
+    }
+}
@@ -0,0 +1,75 @@
+package com.vg.raiddataparser.formula;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Multiplier formula parsed once into an expression tree, evaluated against stat vectors without parsing
+ */
+public class CompiledFormula {
+
+    private static final int[] NO_VARIABLES = new int[0];
+
+    private final String source;
+    private final Expression expression;
+    private final int[] variableSlots;
+    private final FormulaCompiler compiler;
+
+    /**
+     * @param expression    expression tree, null if the formula could not be compiled
+     * @param variableSlots slots of the variables used by the formula
+     */
+    CompiledFormula(String source, Expression expression, int[] variableSlots, FormulaCompiler compiler) {
+        this.source = source;
+        this.expression = expression;
+        this.variableSlots = variableSlots != null ? variableSlots : NO_VARIABLES;
+        this.compiler = compiler;
+    }
+
+    /**
+     * @param stats values of the variables, created by the same FormulaCompiler
+     * @return value of the formula (NaN if the formula could not be compiled)
+     * @throws IllegalStateException when a variable used by the formula is not set in the vector (a missing stat is
+     *                               not evaluated as 0)
+     */
+    public double evaluate(StatVector stats) {
+        if (stats.getCompiler() != compiler) {
+            throw new IllegalArgumentException("StatVector created by another FormulaCompiler");
+        }
+        if (expression == null) {
+            return Double.NaN;
+        }
+        for (int slot : variableSlots) {
+            if (!stats.isSet(slot)) {
+                throw new IllegalStateException("Variable " + compiler.getVariableName(slot)
+                        + " not set for formula \"" + source + "\"");
+            }
+        }
+        return expression.evaluate(stats.values());
+    }
+
+    /**
+     * @return names of the variables used by the formula, all of them must be set to evaluate it
+     */
+    public List<String> getVariables() {
+        List<String> variables = new ArrayList<>(variableSlots.length);
+        for (int slot : variableSlots) {
+            variables.add(compiler.getVariableName(slot));
+        }
+        return variables;
+    }
+
+    /**
+     * @return false if the formula could not be compiled (evaluated as NaN)
+     */
+    public boolean isValid() {
+        return expression != null;
+    }
+
+    public String getSource() { return source; }
+
+    @Override
+    public String toString() {
+        return "CompiledFormula{" + source + '}';
+    }
+}
@@ -0,0 +1,14 @@
+package com.vg.raiddataparser.formula;
+
+/**
+ * Node of a compiled formula
+ */
+@FunctionalInterface
+interface Expression {
+
+    /**
+     * @param variables values of the variables, by slot (see FormulaCompiler)
+     * @return value of the expression
+     */
+    double evaluate(double[] variables);
+}
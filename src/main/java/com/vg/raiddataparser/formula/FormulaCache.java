@@ -0,0 +1,64 @@
+package com.vg.raiddataparser.formula;
+
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.util.IntObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiled multiplier formulas by skill ID
+ * Each skill's formula is compiled once, invalid formulas are logged once and evaluated as NaN.
+ */
+public class FormulaCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FormulaCache.class.getName());
+
+    private final FormulaCompiler compiler;
+    private final IntObjectMap<CompiledFormula> formulas = new IntObjectMap<>();
+
+    public FormulaCache(FormulaCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * @param skill Skill
+     * @return compiled formula of the skill, null if the skill has no multiplier formula
+     */
+    public synchronized CompiledFormula get(Skill skill) {
+        if (skill.getMultiplierFormula() == null) {
+            return null;
+        }
+
+        CompiledFormula formula = formulas.get(skill.getId());
+        if (formula == null || !formula.getSource().equals(skill.getMultiplierFormula())) {
+            formula = compile(skill);
+            formulas.put(skill.getId(), formula);
+        }
+        return formula;
+    }
+
+    /**
+     * Evaluate the skill's formula
+     *
+     * @param skill Skill
+     * @param stats stat vector created by the cache's compiler
+     * @return value of the formula, NaN if the skill has no valid formula (e.g. unknown variable)
+     * @throws IllegalStateException when a variable used by the formula is not set in the vector
+     */
+    public double evaluate(Skill skill, StatVector stats) {
+        CompiledFormula formula = get(skill);
+        return formula == null ? Double.NaN : formula.evaluate(stats);
+    }
+
+    public FormulaCompiler getCompiler() { return compiler; }
+
+    private CompiledFormula compile(Skill skill) {
+        try {
+            return compiler.compile(skill.getMultiplierFormula());
+        } catch (FormulaException e) {
+            LOGGER.warn("Invalid multiplier formula for skill (ID, name): " + skill.getId() + ", " + skill.getName()
+                    + ". " + e.getMessage());
+            return new CompiledFormula(skill.getMultiplierFormula(), null, null, compiler);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.vg.raiddataparser.formula;
+
+import com.vg.raiddataparser.model.champion.Champion;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Compile multiplier formulas (e.g. "3.4*ATK", "0.2*HP+0.1*DEF") into expression trees
+ *
+ * <pre>
+ * expression := term (('+' | '-') term)*
+ * term       := unary (('*' | '/') unary)*
+ * unary      := ('-' | '+') unary | primary
+ * primary    := number | variable | function '(' expression (',' expression)* ')' | '(' expression ')'
+ * </pre>
+ *
+ * Variables are identifiers (letters, digits, '_'), each one has a slot in the StatVector of this compiler. The
+ * champion stats have fixed slots (HP, ATK, DEF, SPD, RES, ACC, CR, CD), other variables (e.g. enemy stats) must be
+ * declared with declareVariable() before compiling the formulas using them: an unknown variable is a compile error,
+ * not a 0. Functions: min, max, abs, floor, ceil, round.
+ * Constant sub-expressions are computed at compile time.
+ */
+public class FormulaCompiler {
+
+    public static final String HP = "HP";
+    public static final String ATK = "ATK";
+    public static final String DEF = "DEF";
+    public static final String SPD = "SPD";
+    public static final String RES = "RES";
+    public static final String ACC = "ACC";
+    public static final String CR = "CR";
+    public static final String CD = "CD";
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    public FormulaCompiler() {
+        for (String stat : new String[]{HP, ATK, DEF, SPD, RES, ACC, CR, CD}) {
+            declareVariable(stat);
+        }
+    }
+
+    /**
+     * Parse the formula into an expression tree
+     *
+     * @param formula multiplier formula
+     * @return CompiledFormula instance
+     * @throws FormulaException when the formula is not valid
+     */
+    public CompiledFormula compile(String formula) throws FormulaException {
+        if (formula == null || formula.trim().isEmpty()) {
+            throw new FormulaException("Empty formula", String.valueOf(formula), 0);
+        }
+        Parser parser = new Parser(formula);
+        Expression expression = parser.parse();
+        return new CompiledFormula(formula, expression, parser.usedSlots.stream().toArray(), this);
+    }
+
+    /**
+     * @return new stat vector with all values at 0
+     */
+    public StatVector newStatVector() {
+        return new StatVector(this);
+    }
+
+    /**
+     * Set the champion's stats in the vector
+     *
+     * @param champion Champion
+     * @param stats    vector to fill (other variables are not changed)
+     * @return the vector
+     */
+    public StatVector setStats(Champion champion, StatVector stats) {
+        return stats.set(HP, champion.getHealth())
+                .set(ATK, champion.getAttack())
+                .set(DEF, champion.getDefense())
+                .set(SPD, champion.getSpeed())
+                .set(RES, champion.getResistance())
+                .set(ACC, champion.getAccuracy())
+                .set(CR, champion.getCriticalChance())
+                .set(CD, champion.getCriticalDamage());
+    }
+
+    /**
+     * Declare a variable that formulas may use, in addition to the champion stats
+     *
+     * @param name variable name (e.g. TRG_HP)
+     * @return slot of the variable (same slot if already declared)
+     */
+    public synchronized int declareVariable(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = names.size();
+            slots.put(name, slot);
+            names.add(name);
+        }
+        return slot;
+    }
+
+    /**
+     * @param name variable name
+     * @return slot of the variable
+     * @throws IllegalArgumentException when the variable is not declared
+     */
+    public synchronized int getSlot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            throw new IllegalArgumentException("Unknown variable " + name);
+        }
+        return slot;
+    }
+
+    /**
+     * @return true if the variable is a champion stat or was declared
+     */
+    public synchronized boolean isDeclared(String name) {
+        return slots.containsKey(name);
+    }
+
+    /**
+     * @param slot variable slot
+     * @return name of the variable
+     */
+    public synchronized String getVariableName(int slot) {
+        return names.get(slot);
+    }
+
+    public synchronized int getVariableCount() {
+        return slots.size();
+    }
+
+    /**
+     * Recursive descent parser, one instance per formula
+     */
+    private class Parser {
+
+        private final String formula;
+        private int position;
+        // Slots of the variables used by the formula
+        private final BitSet usedSlots = new BitSet();
+
+        Parser(String formula) {
+            this.formula = formula;
+        }
+
+        Expression parse() throws FormulaException {
+            Expression expression = parseExpression();
+            skipWhitespace();
+            if (position < formula.length()) {
+                throw error("Unexpected character '" + formula.charAt(position) + "'");
+            }
+            return expression;
+        }
+
+        private Expression parseExpression() throws FormulaException {
+            Expression left = parseTerm();
+            while (true) {
+                if (accept('+')) {
+                    left = binary(left, parseTerm(), '+');
+                } else if (accept('-')) {
+                    left = binary(left, parseTerm(), '-');
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Expression parseTerm() throws FormulaException {
+            Expression left = parseUnary();
+            while (true) {
+                if (accept('*')) {
+                    left = binary(left, parseUnary(), '*');
+                } else if (accept('/')) {
+                    left = binary(left, parseUnary(), '/');
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Expression parseUnary() throws FormulaException {
+            if (accept('-')) {
+                Expression operand = parseUnary();
+                if (operand instanceof Constant) {
+                    return new Constant(-((Constant) operand).value);
+                }
+                return variables -> -operand.evaluate(variables);
+            }
+            if (accept('+')) {
+                return parseUnary();
+            }
+            return parsePrimary();
+        }
+
+        private Expression parsePrimary() throws FormulaException {
+            skipWhitespace();
+            if (position >= formula.length()) {
+                throw error("Unexpected end of formula");
+            }
+
+            char c = formula.charAt(position);
+            if (accept('(')) {
+                Expression expression = parseExpression();
+                expect(')');
+                return expression;
+            }
+            if (Character.isDigit(c) || c == '.') {
+                return parseNumber();
+            }
+            if (Character.isLetter(c) || c == '_') {
+                int start = position;
+                String name = parseIdentifier();
+                if (accept('(')) {
+                    return parseFunction(name);
+                }
+                if (!isDeclared(name)) {
+                    throw new FormulaException("Unknown variable " + name, formula, start);
+                }
+                int slot = getSlot(name);
+                usedSlots.set(slot);
+                return variables -> variables[slot];
+            }
+            throw error("Unexpected character '" + c + "'");
+        }
+
+        private Expression parseNumber() throws FormulaException {
+            int start = position;
+            while (position < formula.length()
+                    && (Character.isDigit(formula.charAt(position)) || formula.charAt(position) == '.')) {
+                position++;
+            }
+            try {
+                return new Constant(Double.parseDouble(formula.substring(start, position)));
+            } catch (NumberFormatException e) {
+                throw new FormulaException("Invalid number", formula, start);
+            }
+        }
+
+        private String parseIdentifier() {
+            int start = position;
+            while (position < formula.length()
+                    && (Character.isLetterOrDigit(formula.charAt(position)) || formula.charAt(position) == '_')) {
+                position++;
+            }
+            return formula.substring(start, position);
+        }
+
+        private Expression parseFunction(String name) throws FormulaException {
+            int start = position;
+            Expression first = parseExpression();
+
+            switch (name.toLowerCase()) {
+                case "min":
+                case "max": {
+                    expect(',');
+                    Expression second = parseExpression();
+                    expect(')');
+                    return binary(first, second, name.toLowerCase().equals("min") ? 'm' : 'M');
+                }
+                case "abs":
+                    expect(')');
+                    return unary(first, Math::abs);
+                case "floor":
+                    expect(')');
+                    return unary(first, Math::floor);
+                case "ceil":
+                    expect(')');
+                    return unary(first, Math::ceil);
+                case "round":
+                    expect(')');
+                    return unary(first, value -> (double) Math.round(value));
+                default:
+                    throw new FormulaException("Unknown function " + name, formula, start);
+            }
+        }
+
+        private Expression unary(Expression operand, DoubleUnaryOperator function) {
+            if (operand instanceof Constant) {
+                return new Constant(function.applyAsDouble(((Constant) operand).value));
+            }
+            return variables -> function.applyAsDouble(operand.evaluate(variables));
+        }
+
+        private Expression binary(Expression left, Expression right, char operator) {
+            Expression expression;
+            switch (operator) {
+                case '+':
+                    expression = variables -> left.evaluate(variables) + right.evaluate(variables);
+                    break;
+                case '-':
+                    expression = variables -> left.evaluate(variables) - right.evaluate(variables);
+                    break;
+                case '*':
+                    expression = variables -> left.evaluate(variables) * right.evaluate(variables);
+                    break;
+                case '/':
+                    expression = variables -> left.evaluate(variables) / right.evaluate(variables);
+                    break;
+                case 'm':
+                    expression = variables -> Math.min(left.evaluate(variables), right.evaluate(variables));
+                    break;
+                default:
+                    expression = variables -> Math.max(left.evaluate(variables), right.evaluate(variables));
+            }
+
+            // Constant folding
+            if (left instanceof Constant && right instanceof Constant) {
+                return new Constant(expression.evaluate(null));
+            }
+            return expression;
+        }
+
+        private boolean accept(char c) {
+            skipWhitespace();
+            if (position < formula.length() && formula.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) throws FormulaException {
+            if (!accept(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < formula.length() && Character.isWhitespace(formula.charAt(position))) {
+                position++;
+            }
+        }
+
+        private FormulaException error(String message) {
+            return new FormulaException(message, formula, position);
+        }
+    }
+
+    private static final class Constant implements Expression {
+
+        private final double value;
+
+        Constant(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double evaluate(double[] variables) {
+            return value;
+        }
+    }
+}
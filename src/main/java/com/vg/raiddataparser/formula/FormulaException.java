@@ -0,0 +1,22 @@
+package com.vg.raiddataparser.formula;
+
+/**
+ * Thrown when a multiplier formula can't be compiled
+ */
+public class FormulaException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String formula;
+    private final int position;
+
+    public FormulaException(String message, String formula, int position) {
+        super(message + " at position " + position + " in formula \"" + formula + "\"");
+        this.formula = formula;
+        this.position = position;
+    }
+
+    public String getFormula() { return formula; }
+
+    public int getPosition() { return position; }
+}
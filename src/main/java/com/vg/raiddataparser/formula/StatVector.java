@@ -0,0 +1,87 @@
+package com.vg.raiddataparser.formula;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Values of the formula variables (champion stats, target stats...), by slot of a FormulaCompiler
+ * Reusable: set the values of another champion and evaluate again, without allocation. The vector keeps track of the
+ * variables that were set, a formula using a variable that is not set can't be evaluated.
+ */
+public class StatVector {
+
+    private final FormulaCompiler compiler;
+    private double[] values;
+    private final BitSet set = new BitSet();
+
+    StatVector(FormulaCompiler compiler) {
+        this.compiler = compiler;
+        this.values = new double[compiler.getVariableCount()];
+    }
+
+    /**
+     * @param name  variable name (e.g. ATK, HP)
+     * @param value value of the variable
+     * @return this vector
+     * @throws IllegalArgumentException when the variable is not declared
+     */
+    public StatVector set(String name, double value) {
+        return set(compiler.getSlot(name), value);
+    }
+
+    /**
+     * @param slot  variable slot (see FormulaCompiler.getSlot())
+     * @param value value of the variable
+     * @return this vector
+     */
+    public StatVector set(int slot, double value) {
+        if (slot >= values.length) {
+            values = Arrays.copyOf(values, Math.max(slot + 1, compiler.getVariableCount()));
+        }
+        values[slot] = value;
+        set.set(slot);
+        return this;
+    }
+
+    /**
+     * @return value of the variable, 0 if not set
+     */
+    public double get(String name) {
+        int slot = compiler.getSlot(name);
+        return slot < values.length ? values[slot] : 0;
+    }
+
+    /**
+     * @return true if the variable was set since the vector was created or cleared
+     */
+    public boolean isSet(String name) {
+        return isSet(compiler.getSlot(name));
+    }
+
+    boolean isSet(int slot) {
+        return set.get(slot);
+    }
+
+    /**
+     * Set all the values to 0 and mark them as not set
+     *
+     * @return this vector
+     */
+    public StatVector clear() {
+        Arrays.fill(values, 0);
+        set.clear();
+        return this;
+    }
+
+    /**
+     * @return values by slot (one per declared variable)
+     */
+    double[] values() {
+        if (values.length < compiler.getVariableCount()) {
+            values = Arrays.copyOf(values, compiler.getVariableCount());
+        }
+        return values;
+    }
+
+    FormulaCompiler getCompiler() { return compiler; }
+}
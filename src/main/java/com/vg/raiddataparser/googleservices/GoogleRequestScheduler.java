@@ -0,0 +1,219 @@
+package com.vg.raiddataparser.googleservices;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpResponseException;
+import com.vg.raiddataparser.util.IOAction;
+import com.vg.raiddataparser.util.TokenBucket;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiting and retries of the Google API calls
+ * Each call takes a token from the per-user and the per-project bucket of its quota (requests per minute), so that
+ * refreshes stay under the quotas. Calls rejected by the rate limit (429, or 403 with a rate limit reason as sent by
+ * Drive) or failed on the server side (5xx, timeout) are retried with jittered exponential backoff, waiting at least
+ * the Retry-After delay. Calls that can't be sent twice (e.g. append) are only retried when rejected by the rate limit
+ * (not processed).
+ */
+public final class GoogleRequestScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GoogleRequestScheduler.class.getName());
+
+    private static final int MAX_ATTEMPTS = 6;
+    private static final long BASE_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_MILLIS = 64_000;
+
+    // Reasons of the 403 errors sent when a rate limit is exceeded (other 403 errors are not retried)
+    private static final Set<String> RATE_LIMIT_REASONS = new HashSet<>(Arrays.asList(
+            "rateLimitExceeded",
+            "userRateLimitExceeded"));
+
+    private static final GoogleRequestScheduler INSTANCE = new GoogleRequestScheduler();
+
+    /**
+     * Default quotas of the APIs (requests per minute)
+     */
+    public enum Quota {
+        SHEETS_READ("sheets", "read", 300, 60),
+        SHEETS_WRITE("sheets", "write", 300, 60),
+        DRIVE("drive", "queries", 12_000, 12_000);
+
+        private final String api;
+        private final String name;
+        private final int perProjectPerMinute;
+        private final int perUserPerMinute;
+
+        Quota(String api, String name, int perProjectPerMinute, int perUserPerMinute) {
+            this.api = api;
+            this.name = name;
+            this.perProjectPerMinute = perProjectPerMinute;
+            this.perUserPerMinute = perUserPerMinute;
+        }
+    }
+
+    private final Map<Quota, TokenBucket> projectBuckets = new EnumMap<>(Quota.class);
+    private final Map<Quota, TokenBucket> userBuckets = new EnumMap<>(Quota.class);
+
+    private GoogleRequestScheduler() {
+        for (Quota quota : Quota.values()) {
+            projectBuckets.put(quota, createBucket(quota, "project", quota.perProjectPerMinute));
+            userBuckets.put(quota, createBucket(quota, "user", quota.perUserPerMinute));
+        }
+    }
+
+    public static GoogleRequestScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Send a request, waiting for the quota and retrying when it fails temporarily
+     *
+     * @param quota      quota consumed by the request
+     * @param idempotent true if sending the request twice has the same result as sending it once
+     * @param request    call (execute())
+     * @return response
+     * @throws IOException thrown by the last attempt, or when interrupted while waiting
+     */
+    public <T> T execute(Quota quota, boolean idempotent, IOAction<T> request) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            acquire(quota);
+            try {
+                return request.run();
+            } catch (IOException e) {
+                int statusCode = e instanceof HttpResponseException ? ((HttpResponseException) e).getStatusCode() : 0;
+                boolean rateLimited = isRateLimited(e);
+                boolean retryable = rateLimited
+                        || (idempotent && (statusCode >= 500 || e instanceof SocketTimeoutException));
+                if (!retryable || attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+
+                if (rateLimited) {
+                    // Other requests wait for the refill too
+                    projectBuckets.get(quota).drain();
+                    userBuckets.get(quota).drain();
+                    Metrics.counter("raid.google.quota.throttled", "api", quota.api, "quota", quota.name).increment();
+                }
+
+                long delay = getBackoffMillis(attempt, getRetryAfterMillis(e));
+                LOGGER.warn("Google " + quota.api + " request failed (" + (statusCode > 0 ? statusCode : e.getMessage())
+                        + "), retrying in " + delay + " ms (attempt " + (attempt + 1) + "/" + MAX_ATTEMPTS + ")");
+                sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * @return true if the request was rejected by a rate limit (not processed, can be sent again)
+     */
+    static boolean isRateLimited(IOException e) {
+        if (!(e instanceof HttpResponseException)) {
+            return false;
+        }
+
+        int statusCode = ((HttpResponseException) e).getStatusCode();
+        if (statusCode == 429) {
+            return true;
+        }
+        if (statusCode != 403 || !(e instanceof GoogleJsonResponseException)) {
+            return false;
+        }
+
+        GoogleJsonError details = ((GoogleJsonResponseException) e).getDetails();
+        if (details == null || details.getErrors() == null) {
+            return false;
+        }
+        for (GoogleJsonError.ErrorInfo error : details.getErrors()) {
+            if (RATE_LIMIT_REASONS.contains(error.getReason())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void acquire(Quota quota) throws IOException {
+        try {
+            long waited = userBuckets.get(quota).acquire() + projectBuckets.get(quota).acquire();
+            if (waited > 0) {
+                LOGGER.debug("Waited " + TimeUnit.NANOSECONDS.toMillis(waited) + " ms for " + quota + " quota");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + quota + " quota");
+        }
+        Metrics.counter("raid.google.quota.requests", "api", quota.api, "quota", quota.name).increment();
+    }
+
+    /**
+     * Random delay between half and all of the exponential backoff (jitter), at least the Retry-After delay
+     */
+    private static long getBackoffMillis(int attempt, long retryAfterMillis) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << (attempt - 1));
+        long jittered = ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+        return Math.max(jittered, retryAfterMillis);
+    }
+
+    /**
+     * @return Retry-After delay of the response (seconds or HTTP date), 0 if none
+     */
+    private static long getRetryAfterMillis(IOException e) {
+        if (!(e instanceof HttpResponseException) || ((HttpResponseException) e).getHeaders() == null) {
+            return 0;
+        }
+
+        String retryAfter = ((HttpResponseException) e).getHeaders().getFirstHeaderStringValue("Retry-After");
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return 0;
+        }
+        retryAfter = retryAfter.trim();
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter));
+        } catch (NumberFormatException notSeconds) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+            } catch (DateTimeParseException notDate) {
+                return 0;
+            }
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry request");
+        }
+    }
+
+    private static TokenBucket createBucket(Quota quota, String scope, int requestsPerMinute) {
+        TokenBucket bucket = new TokenBucket(requestsPerMinute, 1, TimeUnit.MINUTES);
+        Gauge.builder("raid.google.quota.available", bucket, TokenBucket::available)
+                .description("Requests that can be sent without waiting for the quota")
+                .tag("api", quota.api)
+                .tag("quota", quota.name)
+                .tag("scope", scope)
+                .register(Metrics.globalRegistry);
+        return bucket;
+    }
+}
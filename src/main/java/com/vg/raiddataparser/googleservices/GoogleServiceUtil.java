@@ -3,10 +3,12 @@ package com.vg.raiddataparser.googleservices;
 import com.google.api.client.auth.oauth2.Credential;
 import com.google.api.client.extensions.java6.auth.oauth2.AuthorizationCodeInstalledApp;
 import com.google.api.client.extensions.jetty.auth.oauth2.LocalServerReceiver;
+import com.google.api.client.googleapis.apache.v2.GoogleApacheHttpTransport;
 import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
 import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.store.FileDataStoreFactory;
@@ -22,6 +24,13 @@ import java.security.GeneralSecurityException;
 import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Sheets and Drive clients
+ * All the clients share one HTTP transport (pooled keep-alive connections, so TLS handshakes are done once per
+ * connection instead of once per client) and one authorized credential, refreshed before it expires so that no
+ * request waits for a token refresh. Responses are requested gzip-compressed, request bodies are gzip-compressed by
+ * the client library.
+ */
 public final class GoogleServiceUtil {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GoogleServiceUtil.class.getName());
@@ -36,6 +45,18 @@ public final class GoogleServiceUtil {
 
     private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
 
+    // Access token refreshed when it expires in less than this (the client library refreshes it at 60 seconds)
+    private static final long TOKEN_REFRESH_MARGIN_SECONDS = 300;
+
+    private static HttpTransport httpTransport;
+    private static Credential credential;
+    // Held while refreshing the access token (not while sending requests)
+    private static final Object TOKEN_REFRESH_LOCK = new Object();
+    // True once the token was refreshed because its expiry was unknown (written while holding TOKEN_REFRESH_LOCK)
+    private static volatile boolean unknownExpiryRefreshed;
+    private static Sheets sheetsService;
+    private static Drive driveService;
+
     private GoogleServiceUtil() {}
 
     /**
@@ -45,7 +66,7 @@ public final class GoogleServiceUtil {
      * @return Credential object
      * @throws IOException
      */
-    private static Credential authorize(final NetHttpTransport HTTP_TRANSPORT) throws IOException {
+    private static Credential authorize(final HttpTransport HTTP_TRANSPORT) throws IOException {
         LOGGER.info("Authorizing user");
 
         // Load client secrets
@@ -67,37 +88,107 @@ public final class GoogleServiceUtil {
         return new AuthorizationCodeInstalledApp(flow, new LocalServerReceiver.Builder().setPort(8888).build()).authorize("user");
     }
 
-    public static Sheets getSheetsService() {
+    public static synchronized Sheets getSheetsService() {
+        if (sheetsService != null) {
+            return sheetsService;
+        }
+
         LOGGER.info("Getting Sheets service");
         try {
-            final NetHttpTransport HTTP_TRANSPORT = GoogleNetHttpTransport.newTrustedTransport();
-            return new Sheets.Builder(
-                    HTTP_TRANSPORT,
+            sheetsService = new Sheets.Builder(
+                    getHttpTransport(),
                     JSON_FACTORY,
-                    authorize(HTTP_TRANSPORT)
+                    getRequestInitializer()
             ).setApplicationName(APPLICATION_NAME).build();
         } catch (IOException e) {
             LOGGER.error("Error while getting Sheets service. {}", e.getMessage());
         } catch (GeneralSecurityException e) {
             LOGGER.error("Error while creating HTTP transport for Sheets service");
         }
-        return null;
+        return sheetsService;
     }
 
-    public static Drive getDriveService() {
+    public static synchronized Drive getDriveService() {
+        if (driveService != null) {
+            return driveService;
+        }
+
         LOGGER.info("Getting Drive service");
         try {
-            final NetHttpTransport HTTP_TRANSPORT = GoogleNetHttpTransport.newTrustedTransport();
-            return new Drive.Builder(
-                    HTTP_TRANSPORT,
+            driveService = new Drive.Builder(
+                    getHttpTransport(),
                     JSON_FACTORY,
-                    authorize(HTTP_TRANSPORT)
+                    getRequestInitializer()
             ).setApplicationName(APPLICATION_NAME).build();
         } catch (IOException e) {
             LOGGER.error("Error while getting Drive service. {}", e.getMessage());
         } catch (GeneralSecurityException e) {
             LOGGER.error("Error while creating HTTP transport for Drive service");
         }
-        return null;
+        return driveService;
+    }
+
+    /**
+     * @return HTTP transport shared by all the clients (pooled connections, kept alive between requests)
+     * @throws GeneralSecurityException when loading the trusted certificates
+     */
+    private static synchronized HttpTransport getHttpTransport() throws IOException, GeneralSecurityException {
+        if (httpTransport == null) {
+            httpTransport = GoogleApacheHttpTransport.newTrustedTransport();
+        }
+        return httpTransport;
+    }
+
+    /**
+     * @return initializer of every request: shared credential and gzip responses
+     */
+    private static synchronized HttpRequestInitializer getRequestInitializer() throws IOException,
+            GeneralSecurityException {
+        if (credential == null) {
+            credential = authorize(getHttpTransport());
+        }
+
+        Credential authorizedCredential = credential;
+        return (HttpRequest request) -> {
+            refreshTokenIfExpiring(authorizedCredential);
+            authorizedCredential.initialize(request);
+            request.getHeaders().setAcceptEncoding("gzip");
+        };
+    }
+
+    /**
+     * Refresh the access token before it expires, once for all the threads sending requests
+     * The expiry is read without locking, only a thread refreshing the token holds the lock. When the expiry is
+     * unknown (token loaded from the data store), the token is refreshed once; if that fails, the credential refreshes
+     * it when a request gets a 401.
+     */
+    private static void refreshTokenIfExpiring(Credential credential) throws IOException {
+        if (credential.getRefreshToken() == null || !isExpiring(credential.getExpiresInSeconds())) {
+            return;
+        }
+
+        synchronized (TOKEN_REFRESH_LOCK) {
+            // Checked again: another thread may have refreshed it while this one was waiting
+            Long expiresIn = credential.getExpiresInSeconds();
+            if (!isExpiring(expiresIn)) {
+                return;
+            }
+            if (expiresIn == null) {
+                unknownExpiryRefreshed = true;
+            }
+
+            LOGGER.info("Refreshing access token");
+            if (!credential.refreshToken()) {
+                LOGGER.warn("Access token could not be refreshed");
+            }
+        }
+    }
+
+    /**
+     * @param expiresIn seconds before the access token expires, null if unknown
+     * @return true if the token must be refreshed
+     */
+    private static boolean isExpiring(Long expiresIn) {
+        return expiresIn == null ? !unknownExpiryRefreshed : expiresIn <= TOKEN_REFRESH_MARGIN_SECONDS;
     }
 }
@@ -0,0 +1,334 @@
+package com.vg.raiddataparser.googleservices;
+
+import com.google.api.services.sheets.v4.model.ValueRange;
+import com.vg.raiddataparser.googleservices.sheets.GoogleSheetsService;
+import com.vg.raiddataparser.googleservices.sheets.SheetsBatch;
+import com.vg.raiddataparser.sheet.ChampionRows;
+import com.vg.raiddataparser.sheet.PublishedRows;
+import com.vg.raiddataparser.sheet.PublishedRowsStore;
+import com.vg.raiddataparser.sheet.RaidSheet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Publication of the rows while champions are being parsed
+ * Rows go through a bounded queue to a publisher thread, which writes them to each sheet in chunks as soon as a chunk
+ * is full, so that network time overlaps with parsing and the rows of all the sheets are never held at once.
+ * Chunks are written on a pool of up to one thread per sheet (publish parallelism), at most one chunk of each sheet at
+ * a time.
+ * Used when all the rows are written (no delta with previously published rows): the rows written to an existing
+ * spreadsheet are padded and its rows after the last written row are deleted, as RaidSheet.addValuesToBatch() does.
+ */
+public class PublishPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublishPipeline.class.getName());
+
+    private static final int QUEUE_CAPACITY = 256;
+    // Small enough for the first chunks to be written while most champions are still being parsed (the whole dataset
+    // is about 2 MB), large enough to stay far from the write quota
+    private static final int MAX_CHUNK_ROWS = 250;
+    private static final long MAX_CHUNK_BYTES = 256_000;
+
+    // Marks the end of the rows in the queue
+    private static final ChampionRows END = new ChampionRows(null,
+            Collections.emptyList(),
+            Collections.emptyList(),
+            Collections.emptyList(),
+            Collections.emptyList());
+
+    private final GoogleSheetsService sheetsService;
+    private final String spreadsheetId;
+    private final boolean updating;
+    private final SheetsBatch formattingBatch;
+    private final PublishedRowsStore publishedRowsStore;
+    private final Runnable stateSaver;
+
+    private final SheetWriter multiplierWriter;
+    private final SheetWriter championWriter;
+    private final SheetWriter skillWriter;
+
+    private final BlockingQueue<ChampionRows> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ExecutorService writeExecutor;
+    private final Future<Void> publisher;
+
+    /**
+     * Start the publisher thread
+     *
+     * @param updating           true if the spreadsheet already has rows
+     * @param parallelism        sheets written concurrently (1 to 3)
+     * @param formattingBatch    title and banding requests, sent after all the rows were written
+     * @param publishedRowsStore where the published rows are saved, null if not saved
+     * @param stateSaver         saves the spreadsheet state once the rows are written
+     */
+    PublishPipeline(GoogleSheetsService sheetsService,
+            String spreadsheetId,
+            boolean updating,
+            int parallelism,
+            RaidSheet multiplierSheet,
+            RaidSheet championSheet,
+            RaidSheet skillSheet,
+            SheetsBatch formattingBatch,
+            PublishedRowsStore publishedRowsStore,
+            Runnable stateSaver) {
+        this.sheetsService = sheetsService;
+        this.spreadsheetId = spreadsheetId;
+        this.updating = updating;
+        this.writeExecutor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, 3)));
+        this.formattingBatch = formattingBatch;
+        this.publishedRowsStore = publishedRowsStore;
+        this.stateSaver = stateSaver;
+        this.multiplierWriter = new SheetWriter(multiplierSheet);
+        this.championWriter = new SheetWriter(championSheet);
+        this.skillWriter = new SheetWriter(skillSheet);
+        this.publisher = executor.submit(this::publish);
+    }
+
+    /**
+     * Queue the rows of a champion, waits if the publisher is behind
+     *
+     * @param rows rows of the three sheets for a champion
+     */
+    public void accept(ChampionRows rows) {
+        try {
+            queue.put(rows);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queuing rows of champion " + rows.getChampion().getId());
+        }
+    }
+
+    /**
+     * Wait until all the queued rows are written, then send the deletion of the stale rows and the formatting requests,
+     * and save the spreadsheet state and the published rows
+     *
+     * @throws IOException when writing to the spreadsheet
+     */
+    public void finish() throws IOException {
+        try {
+            queue.put(END);
+            publisher.get();
+            if (updating) {
+                addStaleRowsToBatch();
+            }
+            formattingBatch.execute();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while publishing rows");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Error while publishing rows", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            writeExecutor.shutdownNow();
+            // Row counts follow the writes that succeeded
+            stateSaver.run();
+        }
+
+        if (publishedRowsStore != null) {
+            Map<String, PublishedRows> publishedRows = new LinkedHashMap<>();
+            for (SheetWriter writer : new SheetWriter[]{multiplierWriter, championWriter, skillWriter}) {
+                publishedRows.put(writer.sheet.getTitle(), writer.publishedRows.build());
+            }
+            publishedRowsStore.save(spreadsheetId, publishedRows);
+        }
+    }
+
+    /**
+     * Add the deletion of the rows after the last written row of each sheet to the formatting batch
+     */
+    private void addStaleRowsToBatch() throws IOException {
+        SheetWriter[] writers = {multiplierWriter, championWriter, skillWriter};
+        List<String> titles = new ArrayList<>(writers.length);
+        for (SheetWriter writer : writers) {
+            titles.add(writer.sheet.getTitle());
+        }
+
+        // Rows of the spreadsheet metadata: previous rows, or the written rows if there are more
+        int[] numberOfRows = sheetsService.getNumberOfRows(spreadsheetId, titles);
+        for (int i = 0; i < writers.length; i++) {
+            // Row 1 is the header row
+            writers[i].sheet.addStaleRowsToBatch(formattingBatch, writers[i].nextRow - 2,
+                    Math.max(0, numberOfRows[i] - 1));
+        }
+    }
+
+    /**
+     * Stop the publisher thread without writing the remaining rows (e.g. when the transformation failed)
+     */
+    public void cancel() {
+        executor.shutdownNow();
+        writeExecutor.shutdownNow();
+    }
+
+    private Void publish() throws IOException {
+        IOException error = null;
+        while (true) {
+            ChampionRows rows;
+            try {
+                rows = queue.take();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("Interrupted while waiting for rows");
+            }
+            if (rows == END) {
+                break;
+            }
+            // After an error, keep taking the rows so that the parser is never blocked
+            if (error != null) {
+                continue;
+            }
+
+            try {
+                String championKey = multiplierWriter.sheet.getRowKey(rows.getChampion());
+                multiplierWriter.add(rows.getMultiplierRows(),
+                        Collections.nCopies(rows.getMultiplierRows().size(), championKey));
+                championWriter.add(rows.getChampionRows(),
+                        Collections.nCopies(rows.getChampionRows().size(), championKey));
+                skillWriter.add(rows.getSkillRows(), rows.getSkillRowKeys());
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        SheetWriter[] writers = {multiplierWriter, championWriter, skillWriter};
+        for (SheetWriter writer : writers) {
+            if (error == null) {
+                try {
+                    writer.flush();
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+        }
+        // Even after an error, so that no write is still running once the publisher thread is done
+        for (SheetWriter writer : writers) {
+            try {
+                writer.waitForPendingWrite();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+
+        if (error != null) {
+            throw error;
+        }
+        return null;
+    }
+
+    /**
+     * Rows of a sheet waiting to be written
+     */
+    private class SheetWriter {
+
+        private final RaidSheet sheet;
+        private final PublishedRows.Builder publishedRows = new PublishedRows.Builder();
+
+        private List<List<Object>> chunk = new ArrayList<>();
+        private long chunkBytes;
+        // Row of the first row of the chunk (1-based, row 1 is the header row)
+        private int nextRow = 2;
+        // Previous chunk, being written
+        private Future<Void> pendingWrite;
+
+        SheetWriter(RaidSheet sheet) {
+            this.sheet = sheet;
+        }
+
+        void add(List<List<Object>> rows, List<String> keys) throws IOException {
+            for (int i = 0; i < rows.size(); i++) {
+                List<Object> row = rows.get(i);
+                // Padded to clear the previous values of the row
+                List<Object> writtenRow = updating ? sheet.padRow(row) : row;
+                chunk.add(writtenRow);
+                chunkBytes += estimateBytes(writtenRow);
+                publishedRows.add(keys.get(i), row);
+
+                if (chunk.size() >= MAX_CHUNK_ROWS || chunkBytes >= MAX_CHUNK_BYTES) {
+                    flush();
+                }
+            }
+        }
+
+        /**
+         * Write the chunk at its rows (same request if retried, unlike an append), once the previous chunk of the sheet
+         * is written
+         */
+        void flush() throws IOException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            waitForPendingWrite();
+
+            List<List<Object>> rows = chunk;
+            int lastRow = nextRow + rows.size() - 1;
+            String range = sheet.getTitle() + "!A" + nextRow + ":Z" + lastRow;
+            LOGGER.info("Writing rows " + nextRow + " to " + lastRow + " of sheet " + sheet.getTitle());
+            pendingWrite = writeExecutor.submit(() -> {
+                sheetsService.batchUpdateValues(spreadsheetId,
+                        Collections.singletonList(new ValueRange().setRange(range).setValues(rows)));
+                return null;
+            });
+
+            nextRow = lastRow + 1;
+            chunk = new ArrayList<>();
+            chunkBytes = 0;
+        }
+
+        /**
+         * Wait until the previous chunk is written
+         */
+        void waitForPendingWrite() throws IOException {
+            if (pendingWrite == null) {
+                return;
+            }
+
+            try {
+                pendingWrite.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while writing to sheet " + sheet.getTitle());
+            } catch (ExecutionException e) {
+                throw new IOException("Error while writing to sheet " + sheet.getTitle(), e.getCause());
+            } finally {
+                pendingWrite = null;
+            }
+        }
+
+        /**
+         * @return approximate size of the row in the JSON request
+         */
+        private long estimateBytes(List<Object> row) {
+            long bytes = 2;
+            for (Object value : row) {
+                if (value == null) {
+                    bytes += 5;
+                } else if (value instanceof String) {
+                    bytes += ((String) value).length() + 3;
+                } else {
+                    bytes += value.toString().length() + 1;
+                }
+            }
+            return bytes;
+        }
+    }
+}
@@ -6,10 +6,14 @@ import com.google.api.services.sheets.v4.model.Spreadsheet;
 import com.google.api.services.sheets.v4.model.SpreadsheetProperties;
 import com.vg.raiddataparser.googleservices.drive.GoogleDriveService;
 import com.vg.raiddataparser.googleservices.sheets.GoogleSheetsService;
-import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.googleservices.sheets.SheetsBatch;
+import com.vg.raiddataparser.googleservices.sheets.SpreadsheetStateStore;
 import com.vg.raiddataparser.model.champion.Champion;
+import com.vg.raiddataparser.sheet.ChampionRows;
 import com.vg.raiddataparser.sheet.ChampionSheet;
 import com.vg.raiddataparser.sheet.MultiplierSheet;
+import com.vg.raiddataparser.sheet.PublishedRows;
+import com.vg.raiddataparser.sheet.PublishedRowsStore;
 import com.vg.raiddataparser.sheet.RaidSheet;
 import com.vg.raiddataparser.sheet.SkillSheet;
 import org.slf4j.Logger;
@@ -20,12 +24,20 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class SpreadsheetRaidData {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SpreadsheetRaidData.class.getName());
+    // Spreadsheet ID of the versions before SpreadsheetStateStore, read once if there is no state
     private static final String SPREADSHEET_ID_FILE_NAME = "/spreadsheet_id.txt";
     private static final String RESOURCES_PATH = "src/main/resources";
 
@@ -36,90 +48,300 @@ public class SpreadsheetRaidData {
     private final RaidSheet championSheet = new ChampionSheet();
     private final RaidSheet skillSheet = new SkillSheet();
 
+    private final SpreadsheetStateStore stateStore;
+
     private boolean updating = false;
 
     private String spreadsheetId;
 
-    public SpreadsheetRaidData() {
+    /**
+     * @param stateStore spreadsheet published by the previous runs
+     */
+    public SpreadsheetRaidData(SpreadsheetStateStore stateStore) {
+        this.stateStore = stateStore;
         initializeRaidData();
     }
 
     private void initializeRaidData() {
-        File file = new File(RESOURCES_PATH + SPREADSHEET_ID_FILE_NAME);
-
         try {
-            if (file.exists()) { // spreadsheet_id.txt exists
-                spreadsheetId = readSpreadsheetId(file);
-
-                if (driveService.fileExists(spreadsheetId)) { // spreadsheet with corresponding ID exists on Drive
-                    LOGGER.info("Spreadsheet already exists on Drive");
-                    updating = true;
-                    updateSpreadsheet();
-
-                } else { // spreadsheet with corresponding ID doesn't exist on Drive
-                    LOGGER.info("Spreadsheet does not exist");
-                    createSpreadsheet(file);
-                }
-            } else { // spreadsheet_id.txt doesn't exist
-                LOGGER.info("Creating new local file " + file.getAbsolutePath());
-                if (file.createNewFile()) {
-                    createSpreadsheet(file);
+            SpreadsheetStateStore.State state = loadState();
+            String id = state != null ? state.getSpreadsheetId() : readLegacySpreadsheetId();
+
+            if (id == null) {
+                LOGGER.info("No spreadsheet published yet");
+                createSpreadsheet();
+            } else if (driveService.fileExists(id)) { // spreadsheet with corresponding ID exists on Drive
+                LOGGER.info("Spreadsheet already exists on Drive");
+                spreadsheetId = id;
+                if (state != null && state.getMetadata() != null) {
+                    if (state.getMetadata().hasSheets(getSheetTitles())) {
+                        sheetsService.setMetadata(id, state.getMetadata());
+                    } else {
+                        LOGGER.warn("Sheets of the saved spreadsheet state don't match, reloading metadata");
+                    }
                 }
+                // Renamed and updated by publish()
+                updating = true;
+
+            } else { // spreadsheet with corresponding ID doesn't exist on Drive
+                LOGGER.info("Spreadsheet does not exist");
+                createSpreadsheet();
             }
         } catch (IOException e) {
             throw new RuntimeException("Error occurred when creating spreadsheet. Operation will be aborted.", e);
         }
     }
 
-    public void addBandingToSheets() throws IOException {
-        Color headerColor = new Color().setRed(1f).setGreen(0.7f).setBlue(0.2f);
-        Color firstBandColor = new Color().setRed(0.89f).setGreen(0.89f).setBlue(0.92f);
-        Color secondBandColor = new Color().setRed(1f).setGreen(1f).setBlue(1f);;
+    public boolean isUpdating() { return updating; }
 
-        multiplierSheet.addBanding(spreadsheetId, headerColor, firstBandColor, secondBandColor);
-        championSheet.addBanding(spreadsheetId, headerColor, firstBandColor, secondBandColor);
-        skillSheet.addBanding(spreadsheetId, headerColor, firstBandColor, secondBandColor);
-    }
+    /**
+     * Write the values of the three sheets and format them
+     * New spreadsheet: values and banding of every sheet.
+     * Existing spreadsheet: title (last updated date), values and banding update of the Multipliers sheet.
+     * With a PublishedRowsStore, only the rows changed since the previous refresh are written to an existing
+     * spreadsheet, and the published rows are saved for the next refresh (except for the sheets that failed, which are
+     * rewritten by the next refresh).
+     *
+     * @param publishedRowsStore rows published by the previous refresh, null to write all the rows
+     * @param parallelism        1: one batch for the three sheets, more: one batch per sheet, sent concurrently
+     * @throws IOException when writing to the spreadsheet (all the sheets that failed)
+     */
+    public void publish(PublishedRowsStore publishedRowsStore, int parallelism) throws IOException {
+        String id = getSpreadsheetId();
+        if (updating) {
+            LOGGER.info("Updating spreadsheet");
+        }
 
-    public boolean isUpdating() { return updating; }
+        Map<String, PublishedRows> previousRows = Collections.emptyMap();
+        if (updating && publishedRowsStore != null) {
+            try {
+                previousRows = publishedRowsStore.load(id);
+            } catch (IOException e) {
+                LOGGER.warn("Error while reading published rows, writing all rows", e);
+            }
+        }
 
-    public void addMultiplierToValues(Champion champion) {
-        multiplierSheet.addValueToList(champion);
-    }
+        List<RaidSheet> sheets = Arrays.asList(multiplierSheet, championSheet, skillSheet);
+        int[] previousRowCounts = previousRows.size() < sheets.size()
+                ? getPreviousRowCounts(id)
+                : new int[sheets.size()];
+        List<RaidSheet> failedSheets = new ArrayList<>();
+        IOException error = null;
+        saveState(false);
+
+        if (parallelism <= 1) {
+            SheetsBatch batch = sheetsService.newBatch(id);
+            if (updating) {
+                batch.renameSpreadsheet(getUpdatedSpreadsheetTitle());
+            }
+            for (int i = 0; i < sheets.size(); i++) {
+                RaidSheet sheet = sheets.get(i);
+                addSheetToBatch(batch, sheet, previousRows.get(sheet.getTitle()), previousRowCounts[i]);
+            }
 
-    public void writeMultiplierDataToSheet() throws IOException {
-        multiplierSheet.writeValuesToSheet(getSpreadsheetId());
+            try {
+                batch.execute();
+            } catch (IOException e) {
+                failedSheets.addAll(sheets);
+                error = new IOException("Error occurred when " + (updating ? "updating" : "writing") + " spreadsheet",
+                        e);
+            }
+        } else {
+            error = publishConcurrently(id, sheets, previousRows, previousRowCounts, parallelism, failedSheets);
+        }
+
+        saveState(true);
+        if (publishedRowsStore != null) {
+            Map<String, PublishedRows> publishedRows = new LinkedHashMap<>();
+            for (RaidSheet sheet : sheets) {
+                if (!failedSheets.contains(sheet)) {
+                    publishedRows.put(sheet.getTitle(), sheet.getPublishedRows());
+                }
+            }
+            publishedRowsStore.save(id, publishedRows);
+        }
+
+        if (error != null) {
+            throw error;
+        }
     }
 
-    public void updateMultiplierData() throws IOException {
-        multiplierSheet.updateValues(getSpreadsheetId());
+    /**
+     * Send one batch per sheet on a bounded thread pool, the title is renamed with the first sheet
+     *
+     * @param previousRowCounts rows of each sheet before publishing, when all the rows are written
+     * @param failedSheets      filled with the sheets that failed
+     * @return error of the failed sheets (others suppressed), null if all the sheets were published
+     */
+    private IOException publishConcurrently(String id,
+            List<RaidSheet> sheets,
+            Map<String, PublishedRows> previousRows,
+            int[] previousRowCounts,
+            int parallelism,
+            List<RaidSheet> failedSheets) throws IOException {
+        // Loaded once, before the batches that share it
+        sheetsService.getMetadata(id);
+
+        List<SheetsBatch> batches = new ArrayList<>(sheets.size());
+        for (int i = 0; i < sheets.size(); i++) {
+            RaidSheet sheet = sheets.get(i);
+            SheetsBatch batch = sheetsService.newBatch(id);
+            if (updating && batches.isEmpty()) {
+                batch.renameSpreadsheet(getUpdatedSpreadsheetTitle());
+            }
+            addSheetToBatch(batch, sheet, previousRows.get(sheet.getTitle()), previousRowCounts[i]);
+            batches.add(batch);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, sheets.size()));
+        try {
+            List<Future<Void>> futures = new ArrayList<>(batches.size());
+            for (SheetsBatch batch : batches) {
+                futures.add(executor.submit(() -> {
+                    batch.execute();
+                    return null;
+                }));
+            }
+
+            IOException error = null;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    failedSheets.add(sheets.get(i));
+                    IOException sheetError = new IOException("Error while publishing sheet " + sheets.get(i).getTitle(),
+                            e.getCause());
+                    if (error == null) {
+                        error = sheetError;
+                    } else {
+                        error.addSuppressed(sheetError);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while publishing sheets");
+                }
+            }
+
+            if (error != null) {
+                LOGGER.error(failedSheets.size() + " of " + sheets.size() + " sheets could not be published");
+            }
+            return error;
+        } finally {
+            executor.shutdownNow();
+        }
     }
 
-    public void addChampionToValues(Champion champion) {
-        championSheet.addValueToList(champion);
+    /**
+     * Add the values (all rows, or changed rows if previous is not null) and the banding of a sheet to a batch
+     *
+     * @param previousRowCount rows of the sheet before publishing, used when all the rows are written
+     */
+    private void addSheetToBatch(SheetsBatch batch, RaidSheet sheet, PublishedRows previous, int previousRowCount) {
+        if (previous != null) {
+            sheet.addDeltaToBatch(batch, previous);
+        } else {
+            sheet.addValuesToBatch(batch, previousRowCount);
+        }
+        addFormattingToBatch(batch, sheet);
     }
 
-    public void writeChampionDataToSheet() throws IOException {
-        championSheet.writeValuesToSheet(getSpreadsheetId());
+    /**
+     * @return number of rows (header row excluded) of each sheet, in sheet index order: read from the spreadsheet
+     * metadata when updating, 0 for a new spreadsheet
+     */
+    private int[] getPreviousRowCounts(String id) throws IOException {
+        int[] rowCounts = new int[getSheetTitles().size()];
+        if (updating) {
+            int[] numberOfRows = sheetsService.getNumberOfRows(id, getSheetTitles());
+            for (int i = 0; i < rowCounts.length; i++) {
+                // Row 1 is the header row
+                rowCounts[i] = Math.max(0, numberOfRows[i] - 1);
+            }
+        }
+        return rowCounts;
     }
 
-    public void updateChampionData() throws IOException {
-        championSheet.updateValues(getSpreadsheetId());
+    /**
+     * Add the banding of a sheet to a batch: every sheet of a new spreadsheet, the Multipliers sheet of an existing one
+     */
+    private void addFormattingToBatch(SheetsBatch batch, RaidSheet sheet) {
+        Color headerColor = new Color().setRed(1f).setGreen(0.7f).setBlue(0.2f);
+        Color firstBandColor = new Color().setRed(0.89f).setGreen(0.89f).setBlue(0.92f);
+        Color secondBandColor = new Color().setRed(1f).setGreen(1f).setBlue(1f);
+        if (!updating) {
+            sheet.addBandingToBatch(batch, headerColor, firstBandColor, secondBandColor);
+        } else if (sheet == multiplierSheet) {
+            sheet.updateBandingInBatch(batch, headerColor, firstBandColor, secondBandColor);
+        }
     }
 
-    public void addSkillToValues(Skill skill) {
-        skillSheet.addValueToList(skill);
+    /**
+     * Start publishing the rows while champions are parsed: rows passed to the pipeline are written in chunks instead
+     * of being added to the sheets, title and banding are sent when the pipeline is finished.
+     * Only when all the rows are written: returns null if rows were published by the previous refresh of an existing
+     * spreadsheet (only the changed rows are written by publish()).
+     *
+     * @param publishedRowsStore rows published by the previous refresh, null to write all the rows
+     * @param parallelism        sheets written concurrently
+     * @return started pipeline, null if publish() must be used
+     */
+    public PublishPipeline startPipeline(PublishedRowsStore publishedRowsStore, int parallelism) {
+        String id = getSpreadsheetId();
+        if (updating && publishedRowsStore != null) {
+            try {
+                if (!publishedRowsStore.load(id).isEmpty()) {
+                    return null;
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Error while reading published rows, writing all rows", e);
+            }
+        }
+
+        SheetsBatch formattingBatch = sheetsService.newBatch(id);
+        if (updating) {
+            LOGGER.info("Updating spreadsheet");
+            formattingBatch.renameSpreadsheet(getUpdatedSpreadsheetTitle());
+        }
+        for (RaidSheet sheet : Arrays.asList(multiplierSheet, championSheet, skillSheet)) {
+            addFormattingToBatch(formattingBatch, sheet);
+        }
+
+        saveState(false);
+        return new PublishPipeline(sheetsService,
+                id,
+                updating,
+                parallelism,
+                multiplierSheet,
+                championSheet,
+                skillSheet,
+                formattingBatch,
+                publishedRowsStore,
+                () -> saveState(true));
     }
 
-    public void writeSkillDataToSheet() throws IOException {
-        skillSheet.writeValuesToSheet(getSpreadsheetId());
+    /**
+     * Create the rows of the three sheets for a champion and its skills, without adding them to the sheets
+     * Can be called from several threads.
+     *
+     * @param champion champion with its skills
+     * @return ChampionRows instance
+     */
+    public ChampionRows createChampionRows(Champion champion) {
+        return ChampionRows.create(champion, multiplierSheet, championSheet, skillSheet);
     }
 
-    public void updateSkillData() throws IOException {
-        skillSheet.updateValues(getSpreadsheetId());
+    /**
+     * Add rows created by createChampionRows() to the sheets values
+     *
+     * @param rows rows of the three sheets for a champion
+     */
+    public void addChampionRows(ChampionRows rows) {
+        skillSheet.addRows(rows.getSkillRows(), rows.getSkillRowKeys());
+        championSheet.addRows(rows.getChampionRows(), championSheet.getRowKey(rows.getChampion()));
+        multiplierSheet.addRows(rows.getMultiplierRows(), multiplierSheet.getRowKey(rows.getChampion()));
     }
 
-    private void createSpreadsheet(File file) throws IOException {
+    private void createSpreadsheet() throws IOException {
         SpreadsheetProperties properties = new SpreadsheetProperties().setTitle(getUpdatedSpreadsheetTitle());
 
         List<Sheet> sheets = new ArrayList<>(Arrays.asList(
@@ -131,32 +353,47 @@ public class SpreadsheetRaidData {
         Spreadsheet result = sheetsService.createSpreadsheet(properties, sheets);
         spreadsheetId = result.getSpreadsheetId();
 
-        writeSpreadsheetIdToFile(file);
+        LOGGER.info("Saving spreadsheet ID");
+        try {
+            stateStore.save(spreadsheetId, sheetsService.getCachedMetadata(spreadsheetId), true);
+        } catch (IOException e) {
+            throw new IOException("Error occurred when saving spreadsheet ID " + spreadsheetId
+                    + ". Operation will be aborted.", e);
+        }
     }
 
-    private void updateSpreadsheet() throws IOException {
-        LOGGER.info("Updating spreadsheet");
+    /**
+     * @return state saved by the previous run, null if none or unreadable (a new spreadsheet is created)
+     */
+    private SpreadsheetStateStore.State loadState() {
         try {
-            // Rename spreadsheet
-            sheetsService.renameSpreadsheet(spreadsheetId, getUpdatedSpreadsheetTitle());
-
-            // Update sheets data
-            multiplierSheet.updateValues(spreadsheetId);
-            championSheet.updateValues(spreadsheetId);
-            skillSheet.updateValues(spreadsheetId);
-
-            // Update banding (if necessary)
-            Color headerColor = new Color().setRed(1f).setGreen(0.7f).setBlue(0.2f);
-            Color firstBandColor = new Color().setRed(0.89f).setGreen(0.89f).setBlue(0.92f);
-            Color secondBandColor = new Color().setRed(1f).setGreen(1f).setBlue(1f);;
-
-            multiplierSheet.updateBanding(spreadsheetId, headerColor, firstBandColor, secondBandColor);
+            return stateStore.load();
+        } catch (IOException e) {
+            LOGGER.warn("Error while reading spreadsheet state", e);
+            return null;
+        }
+    }
 
+    /**
+     * Save the spreadsheet ID and its cached metadata
+     *
+     * @param withRowCounts false before writing the spreadsheet, true once written
+     */
+    private void saveState(boolean withRowCounts) {
+        try {
+            stateStore.save(spreadsheetId, sheetsService.getCachedMetadata(spreadsheetId), withRowCounts);
         } catch (IOException e) {
-            throw new IOException("Error occurred when updating spreadsheet", e);
+            LOGGER.warn("Error while saving spreadsheet state", e);
         }
     }
 
+    /**
+     * @return titles of the sheets, in sheet index order
+     */
+    private List<String> getSheetTitles() {
+        return Arrays.asList(multiplierSheet.getTitle(), championSheet.getTitle(), skillSheet.getTitle());
+    }
+
     private String getUpdatedSpreadsheetTitle() {
         return "RSL - Multipliers (last updated: " + getCurrentDateFormatyyyyMMdd() + ")";
     }
@@ -167,25 +404,21 @@ public class SpreadsheetRaidData {
         return dateFormatter.format(date);
     }
 
-    private void writeSpreadsheetIdToFile(File f) throws IOException {
-        LOGGER.info("Writing spreadsheet ID to file");
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(f, false))) {
-            writer.write(spreadsheetId);
-        } catch (IOException e) {
-            throw new IOException("Error occurred when writing spreadsheet ID to file \""
-                    + RESOURCES_PATH + SPREADSHEET_ID_FILE_NAME
-                    + "\". Operation will be aborted.", e);
-        }
+    private String getSpreadsheetId() {
+        return spreadsheetId;
     }
 
-    private String getSpreadsheetId() throws IOException {
+    /**
+     * @return ID in spreadsheet_id.txt, null if there is no file
+     */
+    private String readLegacySpreadsheetId() throws IOException {
         File file = new File(RESOURCES_PATH + SPREADSHEET_ID_FILE_NAME);
-        return readSpreadsheetId(file);
-    }
+        if (!file.exists()) {
+            return null;
+        }
 
-    private String readSpreadsheetId(File f) throws IOException {
         LOGGER.info("Retrieving spreadsheet ID from file");
-        try (BufferedReader reader = new BufferedReader(new FileReader(f))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
             return reader.readLine();
         } catch (IOException e) {
             throw new IOException("Error occurred when retrieving spreadsheet ID from file \""
@@ -194,4 +427,4 @@ public class SpreadsheetRaidData {
         }
     }
 
-}
\ No newline at end of file
+}
@@ -1,16 +1,16 @@
 package com.vg.raiddataparser.googleservices.drive;
 
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.model.File;
-import com.google.api.services.drive.model.FileList;
+import com.vg.raiddataparser.googleservices.GoogleRequestScheduler;
 import com.vg.raiddataparser.googleservices.GoogleServiceUtil;
+import com.vg.raiddataparser.metrics.RefreshMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
 
 @Service
@@ -28,34 +28,27 @@ public class GoogleDriveService {
     }
 
     /**
-     * Retrieve a list of all File resources in Drive
-     *
-     * @return List of File resources
-     * @throws IOException
-     */
-    private List<File> getFiles() throws IOException {
-        FileList result = Objects.requireNonNull(SERVICE_DRIVE)
-                .files()
-                .list()
-                .setFields("files(id, name, trashed)")
-                .execute();
-        return new ArrayList<>(result.getFiles());
-    }
-
-    /**
-     * Check if file specified by ID exists
+     * Check if file specified by ID exists (one files.get, whatever the number of files in Drive)
      *
      * @param id ID of the file
      * @return true if file exists and is not trashed
      * @throws IOException
      */
     public boolean fileExists(String id) throws IOException {
-        List<File> files = getFiles();
-        for (File file : files) {
-            if (id.equals(file.getId()) && !file.getTrashed()) {
-                return true;
+        File file;
+        try {
+            file = GoogleRequestScheduler.getInstance().execute(GoogleRequestScheduler.Quota.DRIVE, true,
+                    () -> RefreshMetrics.recordRequest("drive", "getFile", () -> Objects.requireNonNull(SERVICE_DRIVE)
+                            .files()
+                            .get(id)
+                            .setFields("id,trashed")
+                            .execute()));
+        } catch (HttpResponseException e) {
+            if (e.getStatusCode() == 404) {
+                return false;
             }
+            throw e;
         }
-        return false;
+        return !Boolean.TRUE.equals(file.getTrashed());
     }
 }
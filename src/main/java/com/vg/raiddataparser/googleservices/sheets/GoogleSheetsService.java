@@ -1,165 +1,354 @@
 package com.vg.raiddataparser.googleservices.sheets;
 
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.UriTemplate;
+import com.google.api.client.json.GenericJson;
 import com.google.api.services.sheets.v4.Sheets;
 import com.google.api.services.sheets.v4.model.*;
+import com.vg.raiddataparser.googleservices.GoogleRequestScheduler;
 import com.vg.raiddataparser.googleservices.GoogleServiceUtil;
+import com.vg.raiddataparser.metrics.RefreshMetrics;
+import com.vg.raiddataparser.util.IOAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class GoogleSheetsService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GoogleSheetsService.class.getName());
     private static final Sheets SERVICE_SHEETS = GoogleServiceUtil.getSheetsService();
+    private static final String API = "sheets";
+    private static final String VALUES_BATCH_UPDATE_PATH = "v4/spreadsheets/{spreadsheetId}/values:batchUpdate";
+    private static final GoogleRequestScheduler SCHEDULER = GoogleRequestScheduler.getInstance();
+    // Metadata of the spreadsheets used during this run, by spreadsheet ID
+    private static final Map<String, SpreadsheetMetadata> METADATA = new ConcurrentHashMap<>();
 
     public GoogleSheetsService() {
+        this(true);
+    }
+
+    /**
+     * @param requireClient false for subclasses that don't send requests (tests)
+     */
+    GoogleSheetsService(boolean requireClient) {
         LOGGER.info("Initializing GoogleSheetsService...");
-        if (SERVICE_SHEETS == null) {
+        if (requireClient && SERVICE_SHEETS == null) {
             throw new NullPointerException("Error while initializing GoogleSheetsService: Sheets service is null.");
         }
         LOGGER.info("GoogleSheetsService initialized");
     }
 
+    /**
+     * Send a request that reads the spreadsheet (read quota)
+     */
+    private static <T> T read(String operation, String sheet, IOAction<T> request) throws IOException {
+        return SCHEDULER.execute(GoogleRequestScheduler.Quota.SHEETS_READ, true,
+                () -> RefreshMetrics.recordRequest(API, operation, sheet, 0, null, request));
+    }
+
+    /**
+     * Send a request that can't be sent twice, e.g. append (write quota, only retried when rejected by the rate limit)
+     */
+    private static <T> T write(String operation,
+            String sheet,
+            long cells,
+            GenericJson content,
+            IOAction<T> request) throws IOException {
+        return SCHEDULER.execute(GoogleRequestScheduler.Quota.SHEETS_WRITE, false,
+                () -> RefreshMetrics.recordRequest(API, operation, sheet, cells, content, request));
+    }
+
     public Spreadsheet createSpreadsheet(SpreadsheetProperties properties, List<Sheet> sheets) throws IOException {
         LOGGER.info("Creating spreadsheet " + properties.getTitle());
         Spreadsheet spreadsheet = new Spreadsheet()
                 .setProperties(properties)
                 .setSheets(sheets);
-        return Objects.requireNonNull(SERVICE_SHEETS).spreadsheets().create(spreadsheet).execute();
-    }
+        Spreadsheet result = write("createSpreadsheet", properties.getTitle(), 0, spreadsheet,
+                () -> Objects.requireNonNull(SERVICE_SHEETS).spreadsheets().create(spreadsheet).execute());
 
-    public UpdateValuesResponse updateValues(String spreadsheetId,
-            String range,
-            ValueRange body) throws IOException {
-        return Objects.requireNonNull(SERVICE_SHEETS).spreadsheets()
-                .values()
-                .update(spreadsheetId, range, body)
-                .setValueInputOption("RAW")
-                .execute();
-    }
-
-    public AppendValuesResponse appendValues(String spreadsheetId,
-            String range,
-            ValueRange body) throws IOException {
-        return Objects.requireNonNull(SERVICE_SHEETS).spreadsheets()
-                .values()
-                .append(spreadsheetId, range, body)
-                .setValueInputOption("RAW")
-                .execute();
+        // New sheets only contain their header row
+        METADATA.put(result.getSpreadsheetId(), SpreadsheetMetadata.fromSpreadsheet(result, 1));
+        return result;
     }
 
     public Spreadsheet getSpreadsheet(String id) throws IOException {
-        return Objects.requireNonNull(SERVICE_SHEETS)
+        return read("getSpreadsheet", null, () -> Objects.requireNonNull(SERVICE_SHEETS)
                 .spreadsheets()
                 .get(id)
-                .execute();
+                .execute());
+    }
+
+    /**
+     * Use metadata persisted by a previous run instead of loading it
+     *
+     * @param metadata metadata read by SpreadsheetStateStore
+     */
+    public void setMetadata(String spreadsheetId, SpreadsheetMetadata metadata) {
+        METADATA.put(spreadsheetId, metadata);
+    }
+
+    /**
+     * Remove metadata from the cache, so that the next getMetadata() call loads it again
+     * Does nothing if the cached metadata was already replaced (e.g. by a concurrent batch).
+     *
+     * @param metadata stale metadata
+     */
+    public void invalidateMetadata(String spreadsheetId, SpreadsheetMetadata metadata) {
+        METADATA.remove(spreadsheetId, metadata);
+    }
+
+    /**
+     * @return cached metadata of the spreadsheet, null if not loaded (no request)
+     */
+    public SpreadsheetMetadata getCachedMetadata(String spreadsheetId) {
+        return METADATA.get(spreadsheetId);
     }
 
-    private int getSheetId(String spreadsheetId, int index) throws IOException {
-        return getSpreadsheet(spreadsheetId).getSheets().get(index).getProperties().getSheetId();
+    /**
+     * @return cached metadata of the spreadsheet, loaded on first call (sheet IDs and banded range IDs only)
+     */
+    public SpreadsheetMetadata getMetadata(String spreadsheetId) throws IOException {
+        SpreadsheetMetadata metadata = METADATA.get(spreadsheetId);
+        if (metadata == null) {
+            Spreadsheet spreadsheet = read("getSpreadsheetMetadata", null, () -> Objects.requireNonNull(SERVICE_SHEETS)
+                    .spreadsheets()
+                    .get(spreadsheetId)
+                    .setFields(SpreadsheetMetadata.FIELDS)
+                    .execute());
+            metadata = SpreadsheetMetadata.fromSpreadsheet(spreadsheet, SpreadsheetMetadata.UNKNOWN);
+            SpreadsheetMetadata previous = METADATA.putIfAbsent(spreadsheetId, metadata);
+            if (previous != null) {
+                metadata = previous;
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Create a batch of writes and formatting requests for the spreadsheet (see SheetsBatch.execute())
+     *
+     * @param spreadsheetId Spreadsheet Id
+     * @return empty SheetsBatch
+     */
+    public SheetsBatch newBatch(String spreadsheetId) {
+        return new SheetsBatch(this, spreadsheetId);
     }
 
-    private int getNumberOfRows(String spreadsheetId, String range) throws IOException {
-        return Objects.requireNonNull(SERVICE_SHEETS)
+    /**
+     * Write several ranges in one request, the rows are streamed to the request body (see ValueRangesContent)
+     */
+    public BatchUpdateValuesResponse batchUpdateValues(String spreadsheetId, List<ValueRange> data) throws IOException {
+        LOGGER.info("Writing " + data.size() + " value ranges");
+        ValueRangesContent content = new ValueRangesContent("RAW", data);
+
+        long cells = 0;
+        for (ValueRange valueRange : data) {
+            cells += RefreshMetrics.countCells(valueRange.getValues());
+        }
+        long requestCells = cells;
+        BatchUpdateValuesResponse response = SCHEDULER.execute(GoogleRequestScheduler.Quota.SHEETS_WRITE, true,
+                () -> RefreshMetrics.recordStreamedRequest(API, "batchUpdateValues", null, requestCells,
+                        content::getBytesWritten,
+                        () -> postValues(spreadsheetId, content)));
+        if (response.getResponses() != null) {
+            for (UpdateValuesResponse rangeResponse : response.getResponses()) {
+                valuesWritten(spreadsheetId, rangeResponse.getUpdatedRange());
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Send values.batchUpdate with a streamed body (the generated request only accepts a model object)
+     */
+    private static BatchUpdateValuesResponse postValues(String spreadsheetId,
+            ValueRangesContent content) throws IOException {
+        Sheets sheets = Objects.requireNonNull(SERVICE_SHEETS);
+        GenericUrl url = new GenericUrl(UriTemplate.expand(sheets.getBaseUrl(),
+                VALUES_BATCH_UPDATE_PATH,
+                Collections.singletonMap("spreadsheetId", spreadsheetId),
+                true));
+
+        HttpRequest request = sheets.getRequestFactory().buildPostRequest(url, content);
+        request.setParser(sheets.getObjectParser());
+        request.setThrowExceptionOnExecuteError(false);
+        request.getHeaders().setContentEncoding(ValueRangesContent.CONTENT_ENCODING);
+        if (sheets.getApplicationName() != null) {
+            request.getHeaders().setUserAgent(sheets.getApplicationName());
+        }
+
+        HttpResponse response = request.execute();
+        if (!response.isSuccessStatusCode()) {
+            // Same error as the generated requests (status code, Retry-After header, error details)
+            throw GoogleJsonResponseException.from(sheets.getJsonFactory(), response);
+        }
+        return response.parseAs(BatchUpdateValuesResponse.class);
+    }
+
+    /**
+     * Send several spreadsheet requests (title, banding, formatting...) in one request
+     */
+    public BatchUpdateSpreadsheetResponse batchUpdate(String spreadsheetId, List<Request> requests) throws IOException {
+        LOGGER.info("Sending " + requests.size() + " spreadsheet requests");
+        BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest().setRequests(requests);
+
+        BatchUpdateSpreadsheetResponse response = write("batchUpdate", null, 0, requestBody,
+                () -> Objects.requireNonNull(SERVICE_SHEETS)
                 .spreadsheets()
-                .values()
-                .get(spreadsheetId, range)
-                .execute()
-                .getValues()
-                .size();
+                .batchUpdate(spreadsheetId, requestBody)
+                .execute());
+        bandedRangesAdded(spreadsheetId, response);
+        return response;
+    }
+
+    /**
+     * @param titles sheet titles
+     * @return number of rows (up to the last non-empty row) of each sheet
+     * Cached counts are used, the others are read in one request (first column only).
+     */
+    public int[] getNumberOfRows(String spreadsheetId, List<String> titles) throws IOException {
+        SpreadsheetMetadata metadata = getMetadata(spreadsheetId);
+
+        List<String> unknownRanges = new ArrayList<>();
+        for (String title : titles) {
+            if (metadata.getNumberOfRows(title) == SpreadsheetMetadata.UNKNOWN) {
+                unknownRanges.add(firstColumnRange(title));
+            }
+        }
+
+        if (!unknownRanges.isEmpty()) {
+            List<ValueRange> valueRanges = read("batchGetValues", null, () -> Objects.requireNonNull(SERVICE_SHEETS)
+                    .spreadsheets()
+                    .values()
+                    .batchGet(spreadsheetId)
+                    .setRanges(unknownRanges)
+                    .setMajorDimension("COLUMNS")
+                    .execute())
+                    .getValueRanges();
+
+            int i = 0;
+            for (String title : titles) {
+                if (metadata.getNumberOfRows(title) == SpreadsheetMetadata.UNKNOWN) {
+                    List<List<Object>> columns = valueRanges.get(i++).getValues();
+                    metadata.setNumberOfRows(title, columns != null && !columns.isEmpty() ? columns.get(0).size() : 0);
+                }
+            }
+        }
+
+        int[] numberOfRows = new int[titles.size()];
+        for (int i = 0; i < numberOfRows.length; i++) {
+            numberOfRows[i] = metadata.getNumberOfRows(titles.get(i));
+        }
+        return numberOfRows;
+    }
+
+    /**
+     * Update the cached row count of the sheet of a written range
+     *
+     * @param updatedRange A1 range returned by the API (e.g. Skills!A2:K500)
+     */
+    private void valuesWritten(String spreadsheetId, String updatedRange) {
+        SpreadsheetMetadata metadata = METADATA.get(spreadsheetId);
+        if (metadata == null || updatedRange == null) {
+            return;
+        }
+
+        int separator = updatedRange.lastIndexOf('!');
+        if (separator < 0) {
+            return;
+        }
+        String title = updatedRange.substring(0, separator);
+        if (title.length() > 1 && title.startsWith("'") && title.endsWith("'")) {
+            title = title.substring(1, title.length() - 1).replace("''", "'");
+        }
+
+        int end = updatedRange.length();
+        int start = end;
+        while (start > separator + 1 && Character.isDigit(updatedRange.charAt(start - 1))) {
+            start--;
+        }
+        if (start < end) {
+            metadata.valuesWritten(title, Integer.parseInt(updatedRange.substring(start, end)));
+        }
     }
 
-    private int getBandedRangeId(String spreadsheetId, int sheetIndex, int bandedRangeIndex) throws IOException {
-        return getSpreadsheet(spreadsheetId).getSheets()
-                .get(sheetIndex)
-                .getBandedRanges()
-                .get(bandedRangeIndex)
-                .getBandedRangeId();
+    private void bandedRangesAdded(String spreadsheetId, BatchUpdateSpreadsheetResponse response) {
+        SpreadsheetMetadata metadata = METADATA.get(spreadsheetId);
+        if (metadata == null || response.getReplies() == null) {
+            return;
+        }
+
+        for (Response reply : response.getReplies()) {
+            if (reply.getAddBanding() != null && reply.getAddBanding().getBandedRange() != null) {
+                BandedRange bandedRange = reply.getAddBanding().getBandedRange();
+                metadata.bandedRangeAdded(bandedRange.getRange().getSheetId(), bandedRange.getBandedRangeId());
+            }
+        }
+    }
+
+    private static String firstColumnRange(String title) {
+        return "'" + title.replace("'", "''") + "'!A:A";
     }
 
-    public BatchUpdateSpreadsheetResponse addBanding(String spreadsheetId,
-            int sheetIndex,
-            String range,
+    static Request createAddBandingRequest(int sheetId,
+            int endRowIndex,
             Color headerColor,
             Color firstBandColor,
-            Color secondBandColor) throws IOException {
-        LOGGER.info("Adding banding to sheet " + range);
-        List<Request> requests = new ArrayList<>();
-
-        requests.add(new Request()
+            Color secondBandColor) {
+        return new Request()
                 .setAddBanding(new AddBandingRequest()
                         .setBandedRange(new BandedRange()
                                 .setRange(new GridRange()
-                                        .setSheetId(getSheetId(spreadsheetId, sheetIndex))
-                                        .setEndRowIndex(getNumberOfRows(spreadsheetId, range)))
+                                        .setSheetId(sheetId)
+                                        .setEndRowIndex(endRowIndex))
                                 .setRowProperties(new BandingProperties()
                                         .setHeaderColor(headerColor)
                                         .setFirstBandColor(firstBandColor)
                                         .setSecondBandColor(secondBandColor)
                                 )
                         )
-                )
-        );
-
-        BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest();
-        requestBody.setRequests(requests);
-
-        return Objects.requireNonNull(SERVICE_SHEETS)
-                .spreadsheets()
-                .batchUpdate(spreadsheetId, requestBody)
-                .execute();
+                );
     }
 
-    public void updateBanding(String spreadsheetId,
-            int sheetIndex,
-            String range,
+    static Request createUpdateBandingRequest(int sheetId,
+            int bandedRangeId,
+            int endRowIndex,
             Color headerColor,
             Color firstBandColor,
-            Color secondBandColor) throws IOException {
-
-        LOGGER.info("Updating banding to sheet " + range);
-        List<Request> requests = new ArrayList<>();
-
-        requests.add(new Request()
+            Color secondBandColor) {
+        return new Request()
                 .setUpdateBanding(new UpdateBandingRequest()
                         .setFields("*")
                         .setBandedRange(new BandedRange()
-                                .setBandedRangeId(getBandedRangeId(spreadsheetId, sheetIndex, 0))
+                                .setBandedRangeId(bandedRangeId)
                                 .setRange(new GridRange()
-                                        .setSheetId(getSheetId(spreadsheetId, sheetIndex))
-                                        .setEndRowIndex(getNumberOfRows(spreadsheetId, range)))
+                                        .setSheetId(sheetId)
+                                        .setEndRowIndex(endRowIndex))
                                 .setRowProperties(new BandingProperties()
                                         .setHeaderColor(headerColor)
                                         .setFirstBandColor(firstBandColor)
                                         .setSecondBandColor(secondBandColor)
                                 )
                         )
-                )
-        );
-
-        BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest();
-
-        requestBody.setRequests(requests);
-        Objects.requireNonNull(SERVICE_SHEETS)
-                .spreadsheets()
-                .batchUpdate(spreadsheetId, requestBody)
-                .execute();
+                );
     }
 
-    public BatchUpdateSpreadsheetResponse formatHeaderRowBoldText(String spreadsheetId,
-            int sheetIndex) throws IOException {
-        LOGGER.info("Making cells text in bold");
-        List<Request> requests = new ArrayList<>();
-
-        requests.add(new Request()
+    static Request createHeaderRowBoldTextRequest(int sheetId) {
+        return new Request()
                 .setRepeatCell(new RepeatCellRequest()
                         .setFields("*")
                         .setRange(new GridRange()
-                                .setSheetId(getSheetId(spreadsheetId, sheetIndex))
+                                .setSheetId(sheetId)
                                 // FIXME:
                                 .setStartRowIndex(0)
                                 .setEndRowIndex(1))
@@ -169,34 +358,44 @@ public class GoogleSheetsService {
                                                 .setBold(true))
                                 )
                         )
-                )
-        );
+                );
+    }
 
-        BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest();
-        requestBody.setRequests(requests);
+    /**
+     * @param startIndex first row (0-based, header row included)
+     * @param endIndex   row after the last row
+     */
+    static Request createInsertRowsRequest(int sheetId, int startIndex, int endIndex) {
+        return new Request()
+                .setInsertDimension(new InsertDimensionRequest()
+                        .setRange(createRowsRange(sheetId, startIndex, endIndex))
+                        // Same format (and banding) as the row above
+                        .setInheritFromBefore(startIndex > 0));
+    }
 
-        return Objects.requireNonNull(SERVICE_SHEETS)
-                .spreadsheets()
-                .batchUpdate(spreadsheetId, requestBody)
-                .execute();
+    /**
+     * @param startIndex first row (0-based, header row included)
+     * @param endIndex   row after the last row
+     */
+    static Request createDeleteRowsRequest(int sheetId, int startIndex, int endIndex) {
+        return new Request()
+                .setDeleteDimension(new DeleteDimensionRequest()
+                        .setRange(createRowsRange(sheetId, startIndex, endIndex)));
     }
 
-    public BatchUpdateSpreadsheetResponse renameSpreadsheet(String spreadsheetId, String title) throws IOException {
-        LOGGER.info("Renaming spreadsheet with last updated date");
-        SpreadsheetProperties properties = new SpreadsheetProperties().setTitle(title);
-        List<Request> requests = new ArrayList<>();
+    private static DimensionRange createRowsRange(int sheetId, int startIndex, int endIndex) {
+        return new DimensionRange()
+                .setSheetId(sheetId)
+                .setDimension("ROWS")
+                .setStartIndex(startIndex)
+                .setEndIndex(endIndex);
+    }
 
-        requests.add(new Request().setUpdateSpreadsheetProperties(
+    static Request createRenameRequest(String title) {
+        SpreadsheetProperties properties = new SpreadsheetProperties().setTitle(title);
+        return new Request().setUpdateSpreadsheetProperties(
                 new UpdateSpreadsheetPropertiesRequest().setFields(
-                        "title").setProperties(properties)));
-
-        BatchUpdateSpreadsheetRequest requestBody = new BatchUpdateSpreadsheetRequest();
-        requestBody.setRequests(requests);
-
-        return Objects.requireNonNull(SERVICE_SHEETS)
-                .spreadsheets()
-                .batchUpdate(spreadsheetId, requestBody)
-                .execute();
+                        "title").setProperties(properties));
     }
-  
+
 }
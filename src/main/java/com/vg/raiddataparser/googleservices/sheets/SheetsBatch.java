@@ -0,0 +1,272 @@
+package com.vg.raiddataparser.googleservices.sheets;
+
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.sheets.v4.model.Color;
+import com.google.api.services.sheets.v4.model.Request;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes and formatting of a spreadsheet, sent together by execute()
+ * Row insertions and deletions are sent first in one spreadsheets.batchUpdate, then all value writes in one
+ * values.batchUpdate, then the title, banding and header formatting requests in one spreadsheets.batchUpdate.
+ * Banding is resolved after the values are written (banded rows), from the spreadsheet metadata cache.
+ * If a request built from persisted metadata is rejected (400, 404: sheet or banded range ID changed by hand), the
+ * metadata is loaded again from the spreadsheet and the request is sent once more.
+ */
+public class SheetsBatch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SheetsBatch.class.getName());
+
+    private final GoogleSheetsService sheetsService;
+    private final String spreadsheetId;
+
+    private final List<RowChange> rowChanges = new ArrayList<>();
+    private final List<ValueRange> valueRanges = new ArrayList<>();
+    private final List<Request> requests = new ArrayList<>();
+    private final List<Formatting> formattings = new ArrayList<>();
+
+    SheetsBatch(GoogleSheetsService sheetsService, String spreadsheetId) {
+        this.sheetsService = sheetsService;
+        this.spreadsheetId = spreadsheetId;
+    }
+
+    /**
+     * Write values to a range (replaces the cells of the range, starting at its top left cell)
+     *
+     * @param range  A1 range (e.g. Skills!A2:Z)
+     * @param values rows to write
+     * @return this batch
+     */
+    public SheetsBatch updateValues(String range, List<List<Object>> values) {
+        valueRanges.add(new ValueRange().setRange(range).setValues(values));
+        return this;
+    }
+
+    /**
+     * Insert empty rows, before the value writes
+     *
+     * @param sheetIndex index of the sheet
+     * @param startIndex first row (0-based, header row included)
+     * @param endIndex   row after the last inserted row
+     * @return this batch
+     */
+    public SheetsBatch insertRows(int sheetIndex, int startIndex, int endIndex) {
+        rowChanges.add(new RowChange(sheetIndex, startIndex, endIndex, true));
+        return this;
+    }
+
+    /**
+     * Delete rows, before the value writes (requests are applied in the order they were added)
+     *
+     * @param sheetIndex index of the sheet
+     * @param startIndex first row (0-based, header row included)
+     * @param endIndex   row after the last deleted row
+     * @return this batch
+     */
+    public SheetsBatch deleteRows(int sheetIndex, int startIndex, int endIndex) {
+        rowChanges.add(new RowChange(sheetIndex, startIndex, endIndex, false));
+        return this;
+    }
+
+    public SheetsBatch renameSpreadsheet(String title) {
+        requests.add(GoogleSheetsService.createRenameRequest(title));
+        return this;
+    }
+
+    public SheetsBatch formatHeaderRowBoldText(int sheetIndex) {
+        formattings.add(new Formatting(sheetIndex, null, null, null, null, Formatting.Type.HEADER));
+        return this;
+    }
+
+    /**
+     * Add banding (alternating colors) to the rows of a sheet
+     *
+     * @param sheetIndex index of the sheet
+     * @param range      range whose rows are banded (e.g. sheet title)
+     */
+    public SheetsBatch addBanding(int sheetIndex,
+            String range,
+            Color headerColor,
+            Color firstBandColor,
+            Color secondBandColor) {
+        formattings.add(new Formatting(sheetIndex, range, headerColor, firstBandColor, secondBandColor,
+                Formatting.Type.ADD));
+        return this;
+    }
+
+    /**
+     * Update the first banding of a sheet to the rows of the range
+     *
+     * @param sheetIndex index of the sheet
+     * @param range      range whose rows are banded (e.g. sheet title)
+     */
+    public SheetsBatch updateBanding(int sheetIndex,
+            String range,
+            Color headerColor,
+            Color firstBandColor,
+            Color secondBandColor) {
+        formattings.add(new Formatting(sheetIndex, range, headerColor, firstBandColor, secondBandColor,
+                Formatting.Type.UPDATE));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return rowChanges.isEmpty() && valueRanges.isEmpty() && requests.isEmpty() && formattings.isEmpty();
+    }
+
+    /**
+     * Send the batch: at most two spreadsheets.batchUpdate and one values.batchUpdate (plus the banding lookups)
+     *
+     * @throws IOException when a request fails
+     */
+    public void execute() throws IOException {
+        if (!rowChanges.isEmpty()) {
+            SpreadsheetMetadata metadata = batchUpdateWithMetadata(this::createRowChangeRequests);
+            for (RowChange change : rowChanges) {
+                int count = change.endIndex - change.startIndex;
+                metadata.rowsInserted(change.sheetIndex, change.insert ? count : -count);
+            }
+        }
+        if (!valueRanges.isEmpty()) {
+            sheetsService.batchUpdateValues(spreadsheetId, valueRanges);
+        }
+
+        if (!formattings.isEmpty()) {
+            batchUpdateWithMetadata(metadata -> {
+                List<Request> allRequests = new ArrayList<>(requests);
+                allRequests.addAll(createFormattingRequests(metadata));
+                return allRequests;
+            });
+        } else if (!requests.isEmpty()) {
+            sheetsService.batchUpdate(spreadsheetId, requests);
+        }
+    }
+
+    /**
+     * Send a spreadsheets.batchUpdate built from the metadata, built and sent again with reloaded metadata if the
+     * persisted metadata was stale (nothing is applied when a spreadsheets.batchUpdate is rejected)
+     *
+     * @return metadata the requests were built from
+     */
+    private SpreadsheetMetadata batchUpdateWithMetadata(RequestsBuilder builder) throws IOException {
+        SpreadsheetMetadata metadata = sheetsService.getMetadata(spreadsheetId);
+        try {
+            sheetsService.batchUpdate(spreadsheetId, builder.build(metadata));
+            return metadata;
+        } catch (HttpResponseException e) {
+            if (!metadata.isPersisted() || (e.getStatusCode() != 400 && e.getStatusCode() != 404)) {
+                throw e;
+            }
+            LOGGER.warn("Request rejected with persisted spreadsheet metadata (" + e.getStatusCode()
+                    + "), reloading metadata");
+        }
+
+        sheetsService.invalidateMetadata(spreadsheetId, metadata);
+        metadata = sheetsService.getMetadata(spreadsheetId);
+        sheetsService.batchUpdate(spreadsheetId, builder.build(metadata));
+        return metadata;
+    }
+
+    private List<Request> createRowChangeRequests(SpreadsheetMetadata metadata) {
+        List<Request> rowRequests = new ArrayList<>(rowChanges.size());
+        for (RowChange change : rowChanges) {
+            int sheetId = metadata.getSheetId(change.sheetIndex);
+            rowRequests.add(change.insert
+                    ? GoogleSheetsService.createInsertRowsRequest(sheetId, change.startIndex, change.endIndex)
+                    : GoogleSheetsService.createDeleteRowsRequest(sheetId, change.startIndex, change.endIndex));
+        }
+        return rowRequests;
+    }
+
+    private List<Request> createFormattingRequests(SpreadsheetMetadata metadata) throws IOException {
+        List<String> bandedRanges = new ArrayList<>();
+        for (Formatting formatting : formattings) {
+            if (formatting.range != null) {
+                bandedRanges.add(formatting.range);
+            }
+        }
+        int[] numberOfRows = bandedRanges.isEmpty()
+                ? new int[0]
+                : sheetsService.getNumberOfRows(spreadsheetId, bandedRanges);
+
+        List<Request> formattingRequests = new ArrayList<>(formattings.size());
+        int rangeIndex = 0;
+        for (Formatting formatting : formattings) {
+            int sheetId = metadata.getSheetId(formatting.sheetIndex);
+
+            switch (formatting.type) {
+                case ADD:
+                    formattingRequests.add(GoogleSheetsService.createAddBandingRequest(sheetId,
+                            numberOfRows[rangeIndex++],
+                            formatting.headerColor,
+                            formatting.firstBandColor,
+                            formatting.secondBandColor));
+                    break;
+                case UPDATE:
+                    formattingRequests.add(GoogleSheetsService.createUpdateBandingRequest(sheetId,
+                            metadata.getBandedRangeId(formatting.sheetIndex, 0),
+                            numberOfRows[rangeIndex++],
+                            formatting.headerColor,
+                            formatting.firstBandColor,
+                            formatting.secondBandColor));
+                    break;
+                default:
+                    formattingRequests.add(GoogleSheetsService.createHeaderRowBoldTextRequest(sheetId));
+            }
+        }
+        return formattingRequests;
+    }
+
+    @FunctionalInterface
+    private interface RequestsBuilder {
+
+        List<Request> build(SpreadsheetMetadata metadata) throws IOException;
+    }
+
+    private static class RowChange {
+
+        private final int sheetIndex;
+        private final int startIndex;
+        private final int endIndex;
+        private final boolean insert;
+
+        RowChange(int sheetIndex, int startIndex, int endIndex, boolean insert) {
+            this.sheetIndex = sheetIndex;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+            this.insert = insert;
+        }
+    }
+
+    private static class Formatting {
+
+        enum Type { ADD, UPDATE, HEADER }
+
+        private final int sheetIndex;
+        private final String range;
+        private final Color headerColor;
+        private final Color firstBandColor;
+        private final Color secondBandColor;
+        private final Type type;
+
+        Formatting(int sheetIndex,
+                String range,
+                Color headerColor,
+                Color firstBandColor,
+                Color secondBandColor,
+                Type type) {
+            this.sheetIndex = sheetIndex;
+            this.range = range;
+            this.headerColor = headerColor;
+            this.firstBandColor = firstBandColor;
+            this.secondBandColor = secondBandColor;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.vg.raiddataparser.googleservices.sheets;
+
+import com.google.api.services.sheets.v4.model.BandedRange;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sheet IDs, banded range IDs and row counts of a spreadsheet
+ * Loaded once (narrow field mask) and kept up to date with our own writes, so that banding and formatting requests
+ * don't need to download the spreadsheet or its values. Persisted between runs by SpreadsheetStateStore. Thread-safe.
+ * Persisted metadata may be stale if the spreadsheet was edited by hand: SheetsBatch reloads it when a request built
+ * from it is rejected.
+ */
+public class SpreadsheetMetadata {
+
+    /**
+     * Field mask of spreadsheets.get: only what is cached
+     */
+    static final String FIELDS = "sheets(properties(sheetId,title,index),bandedRanges(bandedRangeId))";
+
+    static final int UNKNOWN = -1;
+
+    private final List<SheetMetadata> sheets = new ArrayList<>();
+    // Read from the state of a previous run instead of the spreadsheet
+    private final boolean persisted;
+
+    private SpreadsheetMetadata(boolean persisted) {
+        this.persisted = persisted;
+    }
+
+    /**
+     * @param spreadsheet spreadsheet read with FIELDS (or full resource)
+     * @param rowCount    number of rows of each sheet, UNKNOWN if not known
+     * @return SpreadsheetMetadata instance
+     */
+    static SpreadsheetMetadata fromSpreadsheet(Spreadsheet spreadsheet, int rowCount) {
+        SpreadsheetMetadata metadata = new SpreadsheetMetadata(false);
+        for (Sheet sheet : spreadsheet.getSheets()) {
+            SheetMetadata sheetMetadata = new SheetMetadata(sheet.getProperties().getSheetId(),
+                    sheet.getProperties().getTitle(),
+                    rowCount);
+            if (sheet.getBandedRanges() != null) {
+                for (BandedRange bandedRange : sheet.getBandedRanges()) {
+                    sheetMetadata.bandedRangeIds.add(bandedRange.getBandedRangeId());
+                }
+            }
+            metadata.sheets.add(sheetMetadata);
+        }
+        return metadata;
+    }
+
+    /**
+     * @param withRowCounts false to write UNKNOWN row counts (e.g. while the spreadsheet is being written)
+     */
+    synchronized void write(DataOutputStream out, boolean withRowCounts) throws IOException {
+        out.writeInt(sheets.size());
+        for (SheetMetadata sheet : sheets) {
+            out.writeInt(sheet.sheetId);
+            out.writeUTF(sheet.title);
+            out.writeInt(withRowCounts ? sheet.rowCount : UNKNOWN);
+            out.writeInt(sheet.bandedRangeIds.size());
+            for (int bandedRangeId : sheet.bandedRangeIds) {
+                out.writeInt(bandedRangeId);
+            }
+        }
+    }
+
+    static SpreadsheetMetadata read(DataInputStream in) throws IOException {
+        SpreadsheetMetadata metadata = new SpreadsheetMetadata(true);
+        int sheetCount = in.readInt();
+        for (int i = 0; i < sheetCount; i++) {
+            SheetMetadata sheet = new SheetMetadata(in.readInt(), in.readUTF(), in.readInt());
+            int bandedRangeCount = in.readInt();
+            for (int j = 0; j < bandedRangeCount; j++) {
+                sheet.bandedRangeIds.add(in.readInt());
+            }
+            metadata.sheets.add(sheet);
+        }
+        return metadata;
+    }
+
+    /**
+     * @return true if read from the state of a previous run (SpreadsheetStateStore)
+     */
+    public boolean isPersisted() {
+        return persisted;
+    }
+
+    /**
+     * @param titles expected sheet titles, in sheet index order
+     * @return true if the spreadsheet has exactly these sheets, in this order
+     */
+    public synchronized boolean hasSheets(List<String> titles) {
+        if (sheets.size() != titles.size()) {
+            return false;
+        }
+        for (int i = 0; i < titles.size(); i++) {
+            if (!sheets.get(i).title.equals(titles.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized int getSheetId(int sheetIndex) {
+        return sheets.get(sheetIndex).sheetId;
+    }
+
+    public synchronized String getTitle(int sheetIndex) {
+        return sheets.get(sheetIndex).title;
+    }
+
+    /**
+     * @return ID of the banded range, in the order the banded ranges were added
+     */
+    public synchronized int getBandedRangeId(int sheetIndex, int bandedRangeIndex) {
+        return sheets.get(sheetIndex).bandedRangeIds.get(bandedRangeIndex);
+    }
+
+    /**
+     * @param title sheet title
+     * @return number of rows (up to the last non-empty row), UNKNOWN if not loaded yet
+     */
+    public synchronized int getNumberOfRows(String title) {
+        SheetMetadata sheet = findSheet(title);
+        return sheet != null ? sheet.rowCount : UNKNOWN;
+    }
+
+    synchronized void setNumberOfRows(String title, int rowCount) {
+        SheetMetadata sheet = findSheet(title);
+        if (sheet != null) {
+            sheet.rowCount = rowCount;
+        }
+    }
+
+    /**
+     * Update the row count after values were written (rows after the written range are kept by the API)
+     *
+     * @param title   sheet title
+     * @param lastRow last written row (1-based)
+     */
+    synchronized void valuesWritten(String title, int lastRow) {
+        SheetMetadata sheet = findSheet(title);
+        if (sheet != null && sheet.rowCount != UNKNOWN) {
+            sheet.rowCount = Math.max(sheet.rowCount, lastRow);
+        }
+    }
+
+    /**
+     * Update the row count after rows were inserted (positive) or deleted (negative)
+     */
+    synchronized void rowsInserted(int sheetIndex, int count) {
+        SheetMetadata sheet = sheets.get(sheetIndex);
+        if (sheet.rowCount != UNKNOWN) {
+            sheet.rowCount = Math.max(0, sheet.rowCount + count);
+        }
+    }
+
+    synchronized void bandedRangeAdded(int sheetId, int bandedRangeId) {
+        for (SheetMetadata sheet : sheets) {
+            if (sheet.sheetId == sheetId) {
+                sheet.bandedRangeIds.add(bandedRangeId);
+                return;
+            }
+        }
+    }
+
+    private SheetMetadata findSheet(String title) {
+        for (SheetMetadata sheet : sheets) {
+            if (sheet.title.equals(title)) {
+                return sheet;
+            }
+        }
+        return null;
+    }
+
+    private static class SheetMetadata {
+
+        private final int sheetId;
+        private final String title;
+        private final List<Integer> bandedRangeIds = new ArrayList<>();
+        private int rowCount;
+
+        SheetMetadata(int sheetId, String title, int rowCount) {
+            this.sheetId = sheetId;
+            this.title = title;
+            this.rowCount = rowCount;
+        }
+    }
+}
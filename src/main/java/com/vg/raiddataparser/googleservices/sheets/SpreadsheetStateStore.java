@@ -0,0 +1,108 @@
+package com.vg.raiddataparser.googleservices.sheets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Spreadsheet published by the previous runs, persisted in a file: spreadsheet ID and its metadata (sheet IDs, banded
+ * range IDs, row counts), so that a run doesn't need to look the spreadsheet up or read its metadata again.
+ * The rows published to each sheet (content hashes) are persisted by PublishedRowsStore.
+ */
+public class SpreadsheetStateStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpreadsheetStateStore.class.getName());
+
+    private static final int FILE_MAGIC = 0x52445353; // "RDSS"
+    private static final int FILE_VERSION = 1;
+
+    private final Path stateFile;
+
+    /**
+     * @param stateFile file of the spreadsheet state
+     */
+    public SpreadsheetStateStore(Path stateFile) {
+        this.stateFile = stateFile;
+    }
+
+    /**
+     * @return state saved by the previous run, null if there is no file
+     * @throws IOException when the file can't be read
+     */
+    public State load() throws IOException {
+        if (!Files.exists(stateFile)) {
+            LOGGER.info("No spreadsheet state in " + stateFile.toAbsolutePath());
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Unsupported spreadsheet state file " + stateFile.toAbsolutePath());
+            }
+            String spreadsheetId = in.readUTF();
+            SpreadsheetMetadata metadata = in.readBoolean() ? SpreadsheetMetadata.read(in) : null;
+            return new State(spreadsheetId, metadata);
+        }
+    }
+
+    /**
+     * Persist the spreadsheet state
+     * Written to a temporary file then moved, so the file is never partially written.
+     *
+     * @param spreadsheetId ID of the spreadsheet
+     * @param metadata      metadata of the spreadsheet, null if not known
+     * @param withRowCounts false when the spreadsheet is about to be written (row counts are read again by the next
+     *                      run if this one doesn't save them once written)
+     * @throws IOException when the file can't be written
+     */
+    public void save(String spreadsheetId, SpreadsheetMetadata metadata, boolean withRowCounts) throws IOException {
+        Path parent = stateFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        Path tempFile = Files.createTempFile(parent, stateFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeUTF(spreadsheetId);
+                out.writeBoolean(metadata != null);
+                if (metadata != null) {
+                    metadata.write(out, withRowCounts);
+                }
+            }
+            Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Spreadsheet ID and metadata
+     */
+    public static class State {
+
+        private final String spreadsheetId;
+        private final SpreadsheetMetadata metadata;
+
+        State(String spreadsheetId, SpreadsheetMetadata metadata) {
+            this.spreadsheetId = spreadsheetId;
+            this.metadata = metadata;
+        }
+
+        public String getSpreadsheetId() { return spreadsheetId; }
+
+        /**
+         * @return metadata of the spreadsheet, null if not known
+         */
+        public SpreadsheetMetadata getMetadata() { return metadata; }
+    }
+}
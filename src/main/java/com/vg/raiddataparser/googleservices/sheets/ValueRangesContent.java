@@ -0,0 +1,159 @@
+package com.vg.raiddataparser.googleservices.sheets;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.api.client.http.AbstractHttpContent;
+import com.google.api.client.json.Json;
+import com.google.api.services.sheets.v4.model.ValueRange;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Body of a values.batchUpdate request, streamed from the rows
+ * Rows are written to the (gzip-compressed) request body with a Jackson JsonGenerator, numbers without converting them
+ * to text first, instead of being serialized by reflection by the client library (which also computes the length by
+ * serializing the body once more). A null row is skipped, as the client library does, and a null cell is written as
+ * null, so that the next cells keep their position. Can be written again when the request is retried.
+ */
+class ValueRangesContent extends AbstractHttpContent {
+
+    static final String CONTENT_ENCODING = "gzip";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String valueInputOption;
+    private final List<ValueRange> data;
+
+    private long bytesWritten;
+
+    /**
+     * @param valueInputOption how values are interpreted (RAW or USER_ENTERED)
+     * @param data             ranges and their rows
+     */
+    ValueRangesContent(String valueInputOption, List<ValueRange> data) {
+        super(Json.MEDIA_TYPE);
+        this.valueInputOption = valueInputOption;
+        this.data = data;
+    }
+
+    /**
+     * @return unknown: the body is sent in chunks while it is written
+     */
+    @Override
+    public long getLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean retrySupported() {
+        return true;
+    }
+
+    /**
+     * @return size of the JSON body (before compression) last written
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        CountingOutputStream counter = new CountingOutputStream(gzip);
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(counter, JsonEncoding.UTF8)) {
+            // The request stream is closed by the transport
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            generator.writeStartObject();
+            generator.writeStringField("valueInputOption", valueInputOption);
+            generator.writeArrayFieldStart("data");
+            for (ValueRange valueRange : data) {
+                writeValueRange(generator, valueRange);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        gzip.finish();
+        bytesWritten = counter.count;
+    }
+
+    private static void writeValueRange(JsonGenerator generator, ValueRange valueRange) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("range", valueRange.getRange());
+        if (valueRange.getMajorDimension() != null) {
+            generator.writeStringField("majorDimension", valueRange.getMajorDimension());
+        }
+
+        generator.writeArrayFieldStart("values");
+        if (valueRange.getValues() != null) {
+            for (List<Object> row : valueRange.getValues()) {
+                if (row == null) {
+                    continue;
+                }
+                generator.writeStartArray();
+                for (Object value : row) {
+                    writeValue(generator, value);
+                }
+                generator.writeEndArray();
+            }
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            generator.writeNumber(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Float) {
+            generator.writeNumber((Float) value);
+        } else if (value instanceof BigDecimal) {
+            generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof BigInteger) {
+            generator.writeNumber((BigInteger) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    /**
+     * Counts the bytes written to the underlying stream
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
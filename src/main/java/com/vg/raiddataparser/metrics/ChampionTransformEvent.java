@@ -0,0 +1,27 @@
+package com.vg.raiddataparser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of the transformation of one champion (champion, skills and sheet rows)
+ */
+@Name("com.vg.raiddataparser.ChampionTransform")
+@Label("Champion Transform")
+@Category({"Raid Data Parser"})
+@StackTrace(false)
+public class ChampionTransformEvent extends jdk.jfr.Event {
+
+    @Label("Champion ID")
+    public int championId;
+
+    @Label("Skills")
+    public int skills;
+
+    @Label("Rows")
+    @Description("Rows created for the three sheets")
+    public int rows;
+}
@@ -0,0 +1,37 @@
+package com.vg.raiddataparser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of a Google API call
+ */
+@Name("com.vg.raiddataparser.GoogleRequest")
+@Label("Google API Request")
+@Category({"Raid Data Parser"})
+public class GoogleRequestEvent extends jdk.jfr.Event {
+
+    @Label("API")
+    public String api;
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Sheet")
+    @Description("Sheet title or A1 range of the request, if any")
+    public String sheet;
+
+    @Label("Payload Cells")
+    public long cells;
+
+    @Label("Request Bytes")
+    @Description("Size of the JSON request body")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Success")
+    public boolean success;
+}
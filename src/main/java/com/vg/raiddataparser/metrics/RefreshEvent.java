@@ -0,0 +1,35 @@
+package com.vg.raiddataparser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of a whole refresh run (static data download to sheets publication)
+ */
+@Name("com.vg.raiddataparser.Refresh")
+@Label("Refresh")
+@Category({"Raid Data Parser"})
+@Description("Refresh of the spreadsheet from static_data.json")
+@StackTrace(false)
+public class RefreshEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    public String source;
+
+    @Label("Modified")
+    @Description("False when static_data.json did not change since the previous refresh")
+    public boolean modified;
+
+    @Label("Champions")
+    public int champions;
+
+    @Label("Skills")
+    public int skills;
+
+    @Label("Outcome")
+    @Description("success, error, or unchanged when static_data.json did not change")
+    public String outcome;
+}
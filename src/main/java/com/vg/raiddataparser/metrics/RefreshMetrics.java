@@ -0,0 +1,318 @@
+package com.vg.raiddataparser.metrics;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.vg.raiddataparser.util.IOAction;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Micrometer meters of the refresh pipeline
+ * Registered in the global registry, which Spring Boot Actuator binds to its own registry, so that classes not managed
+ * by Spring (sheets, Google services) can record them. Timers publish percentile histograms.
+ *
+ * <pre>
+ * raid.refresh.phase (timer, tags phase, outcome): download, parse, transform, persist, publish, total
+ * raid.refresh.sheet.rows (timer, tag sheet): row building of each sheet
+ * raid.google.request (timer, tags api, operation, outcome): each Google API call
+ * raid.refresh.champions.parsed, raid.refresh.champions.filtered, raid.refresh.skills.resolved (counters)
+ * raid.refresh.last.champions, raid.refresh.last.skills (gauges): counts of the last refresh
+ * </pre>
+ * Phases and Google API calls are also recorded as JFR events (RefreshPhaseEvent, GoogleRequestEvent), which cost
+ * almost nothing when no recording is running.
+ */
+public final class RefreshMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefreshMetrics.class.getName());
+
+    public static final String PHASE_DOWNLOAD = "download";
+    public static final String PHASE_PARSE = "parse";
+    public static final String PHASE_TRANSFORM = "transform";
+    public static final String PHASE_PERSIST = "persist";
+    public static final String PHASE_PUBLISH = "publish";
+    public static final String PHASE_TOTAL = "total";
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR = "error";
+    // Total phase of a refresh skipped because static_data.json did not change
+    public static final String OUTCOME_UNCHANGED = "unchanged";
+
+    private static final String PHASE_TIMER = "raid.refresh.phase";
+    private static final String SHEET_ROWS_TIMER = "raid.refresh.sheet.rows";
+    private static final String GOOGLE_REQUEST_TIMER = "raid.google.request";
+
+    private static final JsonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+
+    private static final AtomicLong LAST_CHAMPIONS = new AtomicLong();
+    private static final AtomicLong LAST_SKILLS = new AtomicLong();
+
+    static {
+        MeterRegistry registry = Metrics.globalRegistry;
+        Gauge.builder("raid.refresh.last.champions", LAST_CHAMPIONS, AtomicLong::get)
+                .description("Champions published by the last refresh")
+                .register(registry);
+        Gauge.builder("raid.refresh.last.skills", LAST_SKILLS, AtomicLong::get)
+                .description("Skills published by the last refresh")
+                .register(registry);
+    }
+
+    private RefreshMetrics() {}
+
+    /**
+     * @param phase   PHASE_* constant
+     * @param outcome OUTCOME_* constant
+     * @return timer of the refresh phase
+     */
+    public static Timer phaseTimer(String phase, String outcome) {
+        return Timer.builder(PHASE_TIMER)
+                .description("Duration of a refresh phase")
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * @param sheet sheet title
+     * @return timer of the rows built for the sheet
+     */
+    public static Timer sheetRowsTimer(String sheet) {
+        return Timer.builder(SHEET_ROWS_TIMER)
+                .description("Duration of the row building of one object")
+                .tag("sheet", sheet)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+    }
+
+    public static Counter championsParsed() {
+        return Metrics.counter("raid.refresh.champions.parsed");
+    }
+
+    public static Counter championsFiltered() {
+        return Metrics.counter("raid.refresh.champions.filtered");
+    }
+
+    public static Counter skillsResolved() {
+        return Metrics.counter("raid.refresh.skills.resolved");
+    }
+
+    /**
+     * Record the counts of the last refresh (gauges)
+     */
+    public static void setLastRefreshCounts(long champions, long skills) {
+        LAST_CHAMPIONS.set(champions);
+        LAST_SKILLS.set(skills);
+    }
+
+    /**
+     * Start timing a phase (timer and JFR event), see Phase.end() (called in a finally block)
+     *
+     * @param phase PHASE_* constant
+     * @return running phase
+     */
+    public static Phase startPhase(String phase) {
+        return new Phase(phase);
+    }
+
+    /**
+     * Time a phase that can throw an IOException (outcome error when it throws)
+     *
+     * @param phase  PHASE_* constant
+     * @param action phase
+     * @return result of the phase
+     * @throws IOException thrown by the phase
+     */
+    public static <T> T recordPhase(String phase, IOAction<T> action) throws IOException {
+        Phase running = startPhase(phase);
+        boolean success = false;
+        try {
+            T result = action.run();
+            success = true;
+            return result;
+        } finally {
+            running.end(success);
+        }
+    }
+
+    /**
+     * Time a Google API call
+     *
+     * @param api       "sheets" or "drive"
+     * @param operation name of the call (e.g. updateValues)
+     * @param request   call (execute())
+     * @return response
+     * @throws IOException thrown by the call
+     */
+    public static <T> T recordRequest(String api, String operation, IOAction<T> request) throws IOException {
+        return recordRequest(api, operation, null, 0, null, request);
+    }
+
+    /**
+     * Time a Google API call
+     *
+     * @param api       "sheets" or "drive"
+     * @param operation name of the call (e.g. updateValues)
+     * @param sheet     sheet title or range of the call, null if none
+     * @param cells     number of cells sent
+     * @param content   request body, serialized only when the JFR event is recorded (request bytes), null if none
+     * @param request   call (execute())
+     * @return response
+     * @throws IOException thrown by the call
+     */
+    public static <T> T recordRequest(String api,
+            String operation,
+            String sheet,
+            long cells,
+            GenericJson content,
+            IOAction<T> request) throws IOException {
+        return recordStreamedRequest(api, operation, sheet, cells, () -> getSerializedSize(content), request);
+    }
+
+    /**
+     * Time a Google API call whose request body is not a model object (e.g. streamed)
+     *
+     * @param requestBytes size of the request body, called after the call only when the JFR event is recorded
+     * @see #recordRequest(String, String, String, long, GenericJson, IOAction)
+     */
+    public static <T> T recordStreamedRequest(String api,
+            String operation,
+            String sheet,
+            long cells,
+            LongSupplier requestBytes,
+            IOAction<T> request) throws IOException {
+        GoogleRequestEvent event = new GoogleRequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T response = request.run();
+            success = true;
+            return response;
+        } finally {
+            Timer.builder(GOOGLE_REQUEST_TIMER)
+                    .description("Duration of a Google API call")
+                    .tag("api", api)
+                    .tag("operation", operation)
+                    .tag("outcome", success ? "success" : "error")
+                    .publishPercentileHistogram()
+                    .register(Metrics.globalRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.api = api;
+                event.operation = operation;
+                event.sheet = sheet;
+                event.cells = cells;
+                event.requestBytes = requestBytes.getAsLong();
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @return size of the serialized request body, 0 if none or if it can't be serialized
+     */
+    private static long getSerializedSize(GenericJson content) {
+        if (content == null) {
+            return 0;
+        }
+        try {
+            return JSON_FACTORY.toByteArray(content).length;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @param values rows of a ValueRange (can be null)
+     * @return number of cells
+     */
+    public static long countCells(List<List<Object>> values) {
+        long cells = 0;
+        if (values != null) {
+            for (List<Object> row : values) {
+                cells += row != null ? row.size() : 0;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Log the duration of each phase (the application stops after the refresh)
+     */
+    public static void logPhases() {
+        StringBuilder summary = new StringBuilder("Refresh phases:");
+        for (String phase : new String[]{PHASE_DOWNLOAD,
+                PHASE_PARSE,
+                PHASE_TRANSFORM,
+                PHASE_PERSIST,
+                PHASE_PUBLISH,
+                PHASE_TOTAL}) {
+            // All outcomes
+            long count = 0;
+            double totalTime = 0;
+            for (Timer timer : Metrics.globalRegistry.find(PHASE_TIMER).tag("phase", phase).timers()) {
+                count += timer.count();
+                totalTime += timer.totalTime(TimeUnit.MILLISECONDS);
+            }
+            if (count > 0) {
+                summary.append(' ').append(phase).append('=').append(Math.round(totalTime)).append("ms");
+            }
+        }
+        LOGGER.info(summary.toString());
+    }
+
+    /**
+     * Phase started by startPhase()
+     */
+    public static final class Phase {
+
+        private final String name;
+        private final Timer.Sample sample;
+        private final RefreshPhaseEvent event = new RefreshPhaseEvent();
+
+        private Phase(String name) {
+            this.name = name;
+            this.sample = Timer.start(Metrics.globalRegistry);
+            event.begin();
+        }
+
+        /**
+         * Record the phase duration (to be called once)
+         *
+         * @param success false if the phase failed
+         */
+        public void end(boolean success) {
+            end(success ? OUTCOME_SUCCESS : OUTCOME_ERROR);
+        }
+
+        /**
+         * Record the phase duration (to be called once)
+         *
+         * @param outcome OUTCOME_* constant
+         */
+        public void end(String outcome) {
+            sample.stop(phaseTimer(name, outcome));
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = name;
+                event.outcome = outcome;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.vg.raiddataparser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event of a refresh phase (download, parse, transform, persist, publish)
+ */
+@Name("com.vg.raiddataparser.RefreshPhase")
+@Label("Refresh Phase")
+@Category({"Raid Data Parser"})
+@StackTrace(false)
+public class RefreshPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -1,10 +1,15 @@
 package com.vg.raiddataparser.model;
 
 import com.vg.raiddataparser.model.champion.Champion;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
+// Second-level cache region (bounds in application.conf)
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "skill")
 public class Skill {
 
     @Id
@@ -30,6 +35,12 @@ public class Skill {
     @Column(name = "s_group")
     private int group;
 
+    // ContentHasher hash and dataset version of the refresh that last wrote the row (incremental sync)
+    private long contentHash;
+
+    @Column(length = 16)
+    private String datasetVersion;
+
 
     public Skill() {}
 
@@ -71,6 +82,17 @@ public class Skill {
 
     public Champion getChampion() { return champion; }
 
+    public void setChampion(Champion champion) { this.champion = champion; }
+
+    public long getContentHash() { return contentHash; }
+
+    public String getDatasetVersion() { return datasetVersion; }
+
+    public void setContentHash(long contentHash, String datasetVersion) {
+        this.contentHash = contentHash;
+        this.datasetVersion = datasetVersion;
+    }
+
     @Override
     public String toString() {
         return "Skill{" +
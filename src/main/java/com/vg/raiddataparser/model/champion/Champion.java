@@ -1,13 +1,20 @@
 package com.vg.raiddataparser.model.champion;
 
 import com.vg.raiddataparser.model.Skill;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import java.util.List;
 
+// Second-level cache regions (bounds in application.conf), evicted when a refresh writes a new dataset version
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "champion")
 public class Champion {
 
     @Id
@@ -42,8 +49,15 @@ public class Champion {
 
     private int criticalHeal;
     @OneToMany(mappedBy = "champion")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "champion-skills")
     private List<Skill> skills;
 
+    // ContentHasher hash and dataset version of the refresh that last wrote the row (incremental sync)
+    private long contentHash;
+
+    @Column(length = 16)
+    private String datasetVersion;
+
 
     public Champion() {}
 
@@ -117,6 +131,15 @@ public class Champion {
         this.skills = skills;
     }
 
+    public long getContentHash() { return contentHash; }
+
+    public String getDatasetVersion() { return datasetVersion; }
+
+    public void setContentHash(long contentHash, String datasetVersion) {
+        this.contentHash = contentHash;
+        this.datasetVersion = datasetVersion;
+    }
+
     @Override
     public String toString() {
         return "Champion{" +
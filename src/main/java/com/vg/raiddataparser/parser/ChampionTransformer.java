@@ -0,0 +1,254 @@
+package com.vg.raiddataparser.parser;
+
+import com.vg.raiddataparser.metrics.ChampionTransformEvent;
+import com.vg.raiddataparser.metrics.RefreshMetrics;
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+import com.vg.raiddataparser.parser.data.HeroTypeData;
+import com.vg.raiddataparser.parser.data.SkillTypeData;
+import com.vg.raiddataparser.parser.data.StaticData;
+import com.vg.raiddataparser.sheet.ChampionRows;
+import com.vg.raiddataparser.stats.ChampionStatColumns;
+import com.vg.raiddataparser.stats.StatProgression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Build champions, skills and sheet rows from static data
+ * Champions can be split across a fork-join pool: each task builds its own champions, skills and rows, and the
+ * results are merged in static_data.json order so the sheets content does not depend on the parallelism.
+ */
+public class ChampionTransformer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChampionTransformer.class.getName());
+
+    // Champions transformed by a task without splitting it further
+    private static final int SEQUENTIAL_THRESHOLD = 32;
+    // Champions transformed on the pool before their rows are passed on (streaming transformation)
+    private static final int STREAMING_BLOCK_SIZE = 256;
+
+    private static final StatProgression STAT_PROGRESSION = new StatProgression();
+
+    private final StaticData staticData;
+    private final Function<Champion, ChampionRows> rowsFactory;
+
+    // Health, attack and defense of each champion (static_data.json order) at 6 stars, max level
+    private final int[] maxHealth;
+    private final int[] maxAttack;
+    private final int[] maxDefense;
+
+    /**
+     * @param staticData  champions, skills and localized texts
+     * @param rowsFactory creates the sheet rows of a champion (e.g. SpreadsheetRaidData::createChampionRows),
+     *                    called from several threads
+     */
+    public ChampionTransformer(StaticData staticData, Function<Champion, ChampionRows> rowsFactory) {
+        this.staticData = staticData;
+        this.rowsFactory = rowsFactory;
+
+        ChampionStatColumns columns = ChampionStatColumns.fromHeroTypes(staticData.getHeroTypes());
+        maxHealth = new int[columns.size()];
+        maxAttack = new int[columns.size()];
+        maxDefense = new int[columns.size()];
+        STAT_PROGRESSION.fill(columns, StatProgression.MAX_RANK, StatProgression.MAX_LEVEL,
+                maxHealth, maxAttack, maxDefense);
+    }
+
+    /**
+     * Transform all champions in the current thread
+     *
+     * @return rows of each champion, in static_data.json order
+     */
+    public List<ChampionRows> transform() {
+        return transform(staticData.getHeroTypes(), 0);
+    }
+
+    /**
+     * Transform all champions in the current thread, passing the rows of each champion on as soon as it is transformed
+     *
+     * @param consumer receives the rows of each champion, in static_data.json order
+     */
+    public void transform(Consumer<ChampionRows> consumer) {
+        List<HeroTypeData> heroes = staticData.getHeroTypes();
+        for (int i = 0; i < heroes.size(); i++) {
+            ChampionRows championRows = transformChampion(heroes.get(i), i);
+            if (championRows != null) {
+                consumer.accept(championRows);
+            }
+        }
+    }
+
+    /**
+     * Transform all champions on the pool, block by block
+     * The next block is transformed on the pool while the rows of the current block are passed on in the current
+     * thread, so a slow consumer (e.g. publication) overlaps with the transformation.
+     *
+     * @param pool     fork-join pool running the transformation
+     * @param consumer receives the rows of each champion, in static_data.json order
+     */
+    public void transform(ForkJoinPool pool, Consumer<ChampionRows> consumer) {
+        LOGGER.info("Transforming champions on {} threads", pool.getParallelism());
+        List<HeroTypeData> heroes = staticData.getHeroTypes();
+
+        ForkJoinTask<List<ChampionRows>> next = pool.submit(
+                new TransformTask(heroes.subList(0, Math.min(STREAMING_BLOCK_SIZE, heroes.size())), 0));
+        for (int start = 0; start < heroes.size(); start += STREAMING_BLOCK_SIZE) {
+            List<ChampionRows> block = next.join();
+
+            int nextStart = start + STREAMING_BLOCK_SIZE;
+            if (nextStart < heroes.size()) {
+                next = pool.submit(new TransformTask(
+                        heroes.subList(nextStart, Math.min(nextStart + STREAMING_BLOCK_SIZE, heroes.size())),
+                        nextStart));
+            }
+
+            for (ChampionRows championRows : block) {
+                consumer.accept(championRows);
+            }
+        }
+    }
+
+    /**
+     * @param offset index of the first champion in static_data.json
+     */
+    private List<ChampionRows> transform(List<HeroTypeData> heroes, int offset) {
+        List<ChampionRows> rows = new ArrayList<>(heroes.size());
+        for (int i = 0; i < heroes.size(); i++) {
+            ChampionRows championRows = transformChampion(heroes.get(i), offset + i);
+            if (championRows != null) {
+                rows.add(championRows);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Build the champion, its skills and its rows
+     *
+     * @param index index of the champion in static_data.json (stat columns)
+     * @return ChampionRows instance, null if the champion's skills can't be parsed
+     */
+    private ChampionRows transformChampion(HeroTypeData hero, int index) {
+        ChampionTransformEvent event = new ChampionTransformEvent();
+        event.begin();
+
+        String championName = staticData.getLocalizedText(hero.getNameKey());
+        Champion champion = createChampion(hero, index, championName);
+
+        if (hero.getSkillTypeIds() == null) {
+            LOGGER.error("Error while parsing champion's skills for champion (ID, name): "
+                    + hero.getId()
+                    + ", "
+                    + championName);
+            RefreshMetrics.championsFiltered().increment();
+            return null;
+        }
+
+        List<Skill> championSkills = new ArrayList<>();
+
+        for (int championSkillId : hero.getSkillTypeIds()) {
+            SkillTypeData skillType = staticData.getSkillType(championSkillId);
+
+            // Create a new Skill for skill ID found
+            if (skillType != null) {
+                championSkills.add(createSkill(skillType, champion));
+            }
+        }
+
+        RefreshMetrics.skillsResolved().increment(championSkills.size());
+        champion.setSkills(championSkills);
+        ChampionRows championRows = rowsFactory.apply(champion);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.championId = hero.getId();
+            event.skills = championSkills.size();
+            event.rows = championRows.getMultiplierRows().size()
+                    + championRows.getChampionRows().size()
+                    + championRows.getSkillRows().size();
+            event.commit();
+        }
+        return championRows;
+    }
+
+    private Champion createChampion(HeroTypeData hero, int index, String championName) {
+        return new Champion.Builder()
+                .setId(hero.getId())
+                .setName(championName)
+                .setAffinity(hero.getElement())
+                .setRole(hero.getRole())
+                .setFaction(hero.getFraction())
+                .setRarity(hero.getRarity())
+                // 6 stars, max level
+                .setHealth(maxHealth[index])
+                .setAttack(maxAttack[index])
+                .setDefense(maxDefense[index])
+                .setSpeed(calculateBaseStatValue(hero.getSpeed()))
+                .setResistance(calculateBaseStatValue(hero.getResistance()))
+                .setAccuracy(calculateBaseStatValue(hero.getAccuracy()))
+                .setCriticalChance(calculateBaseStatValue(hero.getCriticalChance()))
+                .setCriticalDamage(calculateBaseStatValue(hero.getCriticalDamage()))
+                .setCriticalHeal(calculateBaseStatValue(hero.getCriticalHeal()))
+                .build();
+    }
+
+    private Skill createSkill(SkillTypeData skillType, Champion champion) {
+        return new Skill.Builder()
+                .setId(skillType.getId())
+                .setRevision(skillType.getRevision())
+                .setName(staticData.getLocalizedText(skillType.getNameKey()))
+                .setDescription(staticData.getLocalizedText(skillType.getDescriptionKey()))
+                .setCooldown(skillType.getCooldown())
+                .setMultiplierFormula(skillType.getMultiplierFormula())
+                .setVisibility(skillType.getVisibility())
+                .setGroup(skillType.getGroup())
+                .setChampion(champion)
+                .build();
+    }
+
+    private int calculateBaseStatValue(long stat) {
+        return StatProgression.baseStatValue(stat);
+    }
+
+    /**
+     * Split the champions in halves until SEQUENTIAL_THRESHOLD, then join the results left to right
+     */
+    private class TransformTask extends RecursiveTask<List<ChampionRows>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<HeroTypeData> heroes;
+        // Index of the first champion in static_data.json
+        private final int offset;
+
+        TransformTask(List<HeroTypeData> heroes, int offset) {
+            this.heroes = Objects.requireNonNull(heroes);
+            this.offset = offset;
+        }
+
+        @Override
+        protected List<ChampionRows> compute() {
+            if (heroes.size() <= SEQUENTIAL_THRESHOLD) {
+                return transform(heroes, offset);
+            }
+
+            int middle = heroes.size() / 2;
+            TransformTask left = new TransformTask(heroes.subList(0, middle), offset);
+            TransformTask right = new TransformTask(heroes.subList(middle, heroes.size()), offset + middle);
+
+            right.fork();
+            List<ChampionRows> rows = new ArrayList<>(left.compute());
+            rows.addAll(right.join());
+            return rows;
+        }
+    }
+}
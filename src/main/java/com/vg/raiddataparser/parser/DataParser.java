@@ -1,234 +1,312 @@
 package com.vg.raiddataparser.parser;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.vg.raiddataparser.diff.DatasetDiff;
+import com.vg.raiddataparser.diff.DiffEngine;
+import com.vg.raiddataparser.googleservices.PublishPipeline;
 import com.vg.raiddataparser.googleservices.SpreadsheetRaidData;
-import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.googleservices.sheets.SpreadsheetStateStore;
+import com.vg.raiddataparser.metrics.RefreshEvent;
+import com.vg.raiddataparser.metrics.RefreshMetrics;
 import com.vg.raiddataparser.model.champion.Champion;
-import com.vg.raiddataparser.repository.ChampionRepository;
-import com.vg.raiddataparser.repository.SkillRepository;
+import com.vg.raiddataparser.parser.data.StaticData;
+import com.vg.raiddataparser.parser.data.StaticDataReader;
+import com.vg.raiddataparser.parser.source.CachingHttpStaticDataSource;
+import com.vg.raiddataparser.parser.source.HttpStaticDataSource;
+import com.vg.raiddataparser.parser.source.LocalFileStaticDataSource;
+import com.vg.raiddataparser.parser.source.StaticDataSource;
+import com.vg.raiddataparser.repository.ChampionBulkLoader;
+import com.vg.raiddataparser.sheet.ChampionRows;
+import com.vg.raiddataparser.sheet.PublishedRowsStore;
+import com.vg.raiddataparser.snapshot.SnapshotWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
-import java.net.URL;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 @Component
 public class DataParser {
 
     @Autowired
-    private ChampionRepository championRepository;
-    @Autowired
-    private SkillRepository skillRepository;
+    private ChampionBulkLoader championBulkLoader;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DataParser.class.getName());
 
     private static final String JSON_DATA_URL = "https://raw.githubusercontent.com/Da-Teach/RaidStaticData/master/static_data.json";
-    private static final String JSON_CHAMPION_DATA_NODE = "HeroData";
-    private static final String JSON_CHAMPIONS_NODE = "HeroTypes";
-    private static final String JSON_SKILL_DATA_NODE = "SkillData";
-    private static final String JSON_SKILLS_NODE = "SkillTypes";
-    private static final String JSON_STATIC_DATA_LOCALIZATION_NODE = "StaticDataLocalization";
+
+    @Value("${parser.static-data.url:" + JSON_DATA_URL + "}")
+    private String staticDataUrl;
+
+    // Local copy of static_data.json (pinned dataset version, offline runs), used instead of the URL when set
+    @Value("${parser.static-data.file:}")
+    private String staticDataFile;
+
+    // Last downloaded static_data.json and its validators (conditional download, skipped refresh on 304)
+    @Value("${parser.static-data.cache-dir:}")
+    private String staticDataCacheDirectory;
+
+    // Content hashes of the champions and skills of the last refresh (changes since previous refresh)
+    @Value("${parser.diff.hashes-file:snapshot/content_hashes.bin}")
+    private String contentHashesFile;
+
+    // Binary snapshot of the parsed champions and skills (read with SnapshotReader)
+    @Value("${parser.snapshot.file:snapshot/champions.snapshot}")
+    private String snapshotFile;
+
+    // Rows published by the last refresh (only changed rows are written), empty to write all the rows
+    @Value("${parser.publish.rows-file:snapshot/published_rows.bin}")
+    private String publishedRowsFile;
+
+    // Spreadsheet ID, sheet IDs, banded range IDs and row counts of the published spreadsheet
+    @Value("${parser.publish.state-file:snapshot/spreadsheet_state.bin}")
+    private String spreadsheetStateFile;
+
+    // 1: one batch for the three sheets, more: one batch per sheet, sent concurrently (pipeline: sheets written
+    // concurrently)
+    @Value("${parser.publish.parallelism:3}")
+    private int publishParallelism;
+
+    // Write the rows in chunks while champions are parsed (when all the rows are written)
+    @Value("${parser.publish.pipeline:true}")
+    private boolean pipelinedPublish;
+
+    // Save the champions and skills in the database (batched inserts)
+    @Value("${parser.persist.enabled:true}")
+    private boolean persist;
+
+    // Write only the champions and skills changed since the rows in the database (false: replace all the rows)
+    @Value("${parser.persist.incremental:true}")
+    private boolean incrementalPersist;
+
+    private StaticDataSource staticDataSource;
+
+    // Read static_data.json token by token instead of loading the whole JSON tree
+    @Value("${parser.streaming-ingest:true}")
+    private boolean streamingIngest;
+
+    // Number of threads transforming champions (0: number of processors, 1: sequential)
+    @Value("${parser.parallelism:0}")
+    private int parallelism;
 
     private SpreadsheetRaidData spreadsheetRaidData;
 
+    // True once the database and the spreadsheet are written (validators and hashes saved)
+    private boolean committed;
+
     // Method called after bean initialization
     @PostConstruct
     private void parseData() {
+        RefreshEvent refreshEvent = new RefreshEvent();
+        refreshEvent.begin();
+        RefreshMetrics.Phase total = RefreshMetrics.startPhase(RefreshMetrics.PHASE_TOTAL);
+        String outcome = RefreshMetrics.OUTCOME_ERROR;
+        List<Champion> champions = null;
 
-        spreadsheetRaidData = new SpreadsheetRaidData();
-
-        InputStream inputStream = null;
         try {
-            inputStream = new URL(JSON_DATA_URL).openStream();
+            staticDataSource = createStaticDataSource();
+            refreshEvent.source = staticDataSource.getDescription();
+            LOGGER.info("Reading static data from " + staticDataSource.getDescription());
+
+            InputStream staticDataStream = openStaticData();
+            if (staticDataStream == null) {
+                LOGGER.info("Static data unchanged, nothing to refresh");
+                outcome = RefreshMetrics.OUTCOME_UNCHANGED;
+                return;
+            }
+
+            StaticData staticData;
+            try (InputStream inputStream = staticDataStream) {
+                staticData = RefreshMetrics.recordPhase(RefreshMetrics.PHASE_PARSE, () -> readStaticData(inputStream));
+            }
+
+            spreadsheetRaidData = new SpreadsheetRaidData(new SpreadsheetStateStore(Paths.get(spreadsheetStateFile)));
+            champions = parseChampionData(staticData);
+            if (committed) {
+                outcome = RefreshMetrics.OUTCOME_SUCCESS;
+            }
         } catch (MalformedURLException e) {
             LOGGER.error("URL is invalid: MalformedURLException", e);
         } catch (IOException e) {
-            LOGGER.error("Error while getting JSON from specified URL", e);
+            LOGGER.error("Error while getting or parsing static data JSON. Operation will be aborted.", e);
+        } finally {
+            total.end(outcome);
+            RefreshMetrics.logPhases();
+
+            refreshEvent.end();
+            if (refreshEvent.shouldCommit()) {
+                refreshEvent.outcome = outcome;
+                if (champions != null) {
+                    refreshEvent.modified = true;
+                    refreshEvent.champions = champions.size();
+                    for (Champion champion : champions) {
+                        refreshEvent.skills += champion.getSkills().size();
+                    }
+                }
+                refreshEvent.commit();
+            }
         }
+    }
 
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode rootNode = mapper.readTree(inputStream);
-            parseChampionData(rootNode, mapper);
-        } catch (IOException e) {
-            LOGGER.error("Error while parsing JSON from file", e);
+    /**
+     * Download: conditional request and connection (the HTTP source is read while parsing)
+     *
+     * @return static data to be read, null if unchanged since the previous refresh
+     */
+    private InputStream openStaticData() throws IOException {
+        return RefreshMetrics.recordPhase(RefreshMetrics.PHASE_DOWNLOAD,
+                () -> staticDataSource.isModified() ? staticDataSource.open() : null);
+    }
+
+    private StaticData readStaticData(InputStream inputStream) throws IOException {
+        if (streamingIngest) {
+            return new StaticDataReader().read(inputStream);
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode rootNode = mapper.readTree(inputStream);
+        return StaticData.fromNode(rootNode);
+    }
+
+    /**
+     * @return local file source when parser.static-data.file is set,
+     * cached HTTP source when parser.static-data.cache-dir is set, HTTP source otherwise
+     * @throws IOException when the URL is invalid
+     */
+    private StaticDataSource createStaticDataSource() throws IOException {
+        if (staticDataFile != null && !staticDataFile.trim().isEmpty()) {
+            return new LocalFileStaticDataSource(Paths.get(staticDataFile.trim()));
+        }
+        if (staticDataCacheDirectory != null && !staticDataCacheDirectory.trim().isEmpty()) {
+            return new CachingHttpStaticDataSource(staticDataUrl, Paths.get(staticDataCacheDirectory.trim()));
         }
+        return new HttpStaticDataSource(staticDataUrl);
     }
 
-    private void parseChampionData(JsonNode rootNode, ObjectMapper mapper) {
+    /**
+     * Transform and publish the champions
+     *
+     * @return parsed champions, in static_data.json order
+     */
+    private List<Champion> parseChampionData(StaticData staticData) {
         LOGGER.info("Parsing data...");
 
-        JsonNode nodeChampionData = rootNode.get(JSON_CHAMPION_DATA_NODE);
-        ArrayNode nodeChampions = (ArrayNode) nodeChampionData.get(JSON_CHAMPIONS_NODE);
-
-        for (JsonNode nodeChampion : nodeChampions) {
-            // Filter out unwanted champions
-            // - with no AwakenMaterials (not fully ascended, where applicable)
-            // - with faction values different than 0 (bosses, demon lord, pve waves)
-            if (!nodeChampion.has("AwakenMaterials") && nodeChampion.get("Fraction").intValue() != 0) {
-
-                int championId = nodeChampion.get("Id").intValue();
-
-                // Get the StaticDataLocalization node for the championName
-                JsonNode nodeStaticDataLocalization = rootNode.get(JSON_STATIC_DATA_LOCALIZATION_NODE);
-                String championNameKey = nodeChampion.get("Name").get("Key").textValue();
-                String championName = nodeStaticDataLocalization.findPath(championNameKey).textValue();
-
-                int championAffinity = nodeChampion.get("Element").intValue();
-                int championRole = nodeChampion.get("Role").intValue();
-                int championFaction = nodeChampion.get("Fraction").intValue();
-                int championRarity = nodeChampion.get("Rarity").intValue();
-
-                JsonNode nodeBaseStats = nodeChampion.get("BaseStats");
-                long championHealth = nodeBaseStats.get("Health").longValue();
-                long championAttack = nodeBaseStats.get("Attack").longValue();
-                long championDefense = nodeBaseStats.get("Defence").longValue();
-                long championSpeed = nodeBaseStats.get("Speed").longValue();
-                long championResistance = nodeBaseStats.get("Resistance").longValue();
-                long championAccuracy = nodeBaseStats.get("Accuracy").longValue();
-                long championCriticalChance = nodeBaseStats.get("CriticalChance").longValue();
-                long championCriticalDamage = nodeBaseStats.get("CriticalDamage").longValue();
-                long championCriticalHeal = nodeBaseStats.get("CriticalHeal").longValue();
-
-                Champion champion = new Champion.Builder()
-                        .setId(championId)
-                        .setName(championName)
-                        .setAffinity(championAffinity)
-                        .setRole(championRole)
-                        .setFaction(championFaction)
-                        .setRarity(championRarity)
-                        .setHealth(calculateScalableStatValue(championHealth) * 15) // for HP only, multiply by 15
-                        .setAttack(calculateScalableStatValue(championAttack))
-                        .setDefense(calculateScalableStatValue(championDefense))
-                        .setSpeed(calculateBaseStatValue(championSpeed))
-                        .setResistance(calculateBaseStatValue(championResistance))
-                        .setAccuracy(calculateBaseStatValue(championAccuracy))
-                        .setCriticalChance(calculateBaseStatValue(championCriticalChance))
-                        .setCriticalDamage(calculateBaseStatValue(championCriticalDamage))
-                        .setCriticalHeal(calculateBaseStatValue(championCriticalHeal))
-                        .build();
-
-                // TODO: review (save champion in DB)
-                //championRepository.save(champion);
-
-                // Get SkillData node
-                JsonNode nodeSkillData = rootNode.get(JSON_SKILL_DATA_NODE);
-                ArrayNode nodeSkills = (ArrayNode) nodeSkillData.get(JSON_SKILLS_NODE);
-
-                try {
-                    // Get the Champion's skills IDs as a List
-                    // (using findPath() because get() will cause an error if specified node doesn't exist
-                    List<Integer> championSkillsIds = mapper.readValue(nodeChampion.findPath("SkillTypeIds").toString(),
-                            new TypeReference<List<Integer>>() {});
-                    List<Skill> championSkills = new ArrayList<>();
-
-                    for (int championSkillId : championSkillsIds) {
-                        for (int i = 0; i < nodeSkills.size(); i++) {
-
-                            // Create a new Skill for skill ID found
-                            if (nodeSkills.get(i).findPath("Id").intValue() == championSkillId) {
-
-                                // TODO: review (save skill in DB)
-                                // Save Skill in database
-                                //skillRepository.save(createSkill(rootNode, nodeSkills.get(i), champion));
-                                Skill skill = createSkill(rootNode, nodeSkills.get(i), champion);
-
-                                championSkills.add(skill);
-                                spreadsheetRaidData.addSkillToValues(skill);
-
-                                // Remove node to have less nodes to loop through in the next iteration
-                                nodeSkills.remove(i);
-                            }
-                        }
-                    }
+        PublishedRowsStore publishedRowsStore = publishedRowsFile == null || publishedRowsFile.trim().isEmpty()
+                ? null
+                : new PublishedRowsStore(Paths.get(publishedRowsFile.trim()));
+        PublishPipeline publishPipeline = pipelinedPublish
+                ? spreadsheetRaidData.startPipeline(publishedRowsStore, publishParallelism)
+                : null;
+
+        List<Champion> champions = new ArrayList<>();
+        int[] skillCount = new int[1];
+        Consumer<ChampionRows> consumer = rows -> {
+            champions.add(rows.getChampion());
+            skillCount[0] += rows.getChampion().getSkills().size();
+            if (publishPipeline != null) {
+                publishPipeline.accept(rows);
+            } else {
+                spreadsheetRaidData.addChampionRows(rows);
+            }
+        };
 
-                    champion.setSkills(championSkills);
-                    spreadsheetRaidData.addChampionToValues(champion);
-                    spreadsheetRaidData.addMultiplierToValues(champion);
+        ChampionTransformer transformer = new ChampionTransformer(staticData, spreadsheetRaidData::createChampionRows);
+        RefreshMetrics.Phase transform = RefreshMetrics.startPhase(RefreshMetrics.PHASE_TRANSFORM);
+        boolean transformed = false;
+        try {
+            transformChampions(transformer, consumer);
+            transformed = true;
+        } catch (RuntimeException e) {
+            if (publishPipeline != null) {
+                publishPipeline.cancel();
+            }
+            throw e;
+        } finally {
+            transform.end(transformed);
+        }
 
-                } catch (IOException e) {
-                    LOGGER.error("Error while parsing champion's skills for champion (ID, name): "
-                                    + championId
-                                    + ", "
-                                    + championName,
-                            e);
-                }
+        // Content hashes compared with the previous refresh, also written to the database rows
+        DiffEngine diffEngine = new DiffEngine(Paths.get(contentHashesFile));
+        DatasetDiff diff = diffEngine.diff(champions);
+
+        // The refresh is committed (validators and hashes saved) only if the database and the spreadsheet are written
+        boolean persisted = !persist;
+        if (persist) {
+            RefreshMetrics.Phase persistPhase = RefreshMetrics.startPhase(RefreshMetrics.PHASE_PERSIST);
+            try {
+                championBulkLoader.load(champions, diff, incrementalPersist);
+                persisted = true;
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while saving champions and skills in database", e);
+            } finally {
+                persistPhase.end(persisted);
             }
         }
 
+        RefreshMetrics.Phase publish = RefreshMetrics.startPhase(RefreshMetrics.PHASE_PUBLISH);
+        boolean published = false;
         try {
-            if (spreadsheetRaidData.isUpdating()) {
-                spreadsheetRaidData.updateMultiplierData();
-                spreadsheetRaidData.updateChampionData();
-                spreadsheetRaidData.updateSkillData();
+            if (publishPipeline != null) {
+                publishPipeline.finish();
+            } else {
+                spreadsheetRaidData.publish(publishedRowsStore, publishParallelism);
+            }
+            published = true;
+
+            if (persisted) {
+                staticDataSource.commit();
+                diffEngine.save(diff);
+                RefreshMetrics.setLastRefreshCounts(champions.size(), skillCount[0]);
+                committed = true;
             } else {
-                spreadsheetRaidData.writeMultiplierDataToSheet();
-                spreadsheetRaidData.writeChampionDataToSheet();
-                spreadsheetRaidData.writeSkillDataToSheet();
-                spreadsheetRaidData.addBandingToSheets();
+                LOGGER.warn("Champions and skills not saved in database, "
+                        + "static data will be refreshed again on next run");
             }
         } catch (IOException e) {
-            LOGGER.error(e.getMessage());
+            // Stack trace includes the errors of all the sheets that failed (suppressed)
+            LOGGER.error(e.getMessage(), e);
+        } finally {
+            publish.end(published);
         }
 
-        LOGGER.info("Data parsing completed");
-    }
+        try {
+            new SnapshotWriter().write(champions, Paths.get(snapshotFile));
+        } catch (IOException e) {
+            LOGGER.error("Error while writing snapshot", e);
+        }
 
-    private Skill createSkill(JsonNode rootNode, JsonNode nodeSkill, Champion champion) {
-
-        int skillId = nodeSkill.get("Id").intValue();
-        int skillRevision = nodeSkill.get("Revision").intValue();
-        int skillCooldown = nodeSkill.get("Cooldown").intValue();
-        int skillVisibility = nodeSkill.get("Visibility").intValue();
-        int skillGroup = nodeSkill.get("Group").intValue();
-        String skillMultiplierFormula = nodeSkill.findPath("MultiplierFormula").textValue();
-
-        // Get the StaticDataLocalization node for the skillName and skillDescription values
-        JsonNode nodeStaticDataLocalization = rootNode.get(JSON_STATIC_DATA_LOCALIZATION_NODE);
-        String skillNameKey = nodeSkill.get("Name").get("Key").textValue();
-        String skillName = nodeStaticDataLocalization.findPath(skillNameKey).textValue();
-        String skillDescriptionKey = nodeSkill.get("Description").get("Key").textValue();
-        String skillDescription = nodeStaticDataLocalization.findPath(skillDescriptionKey).textValue();
-
-        return new Skill.Builder()
-                .setId(skillId)
-                .setRevision(skillRevision)
-                .setName(skillName)
-                .setDescription(skillDescription)
-                .setCooldown(skillCooldown)
-                .setMultiplierFormula(skillMultiplierFormula)
-                .setVisibility(skillVisibility)
-                .setGroup(skillGroup)
-                .setChampion(champion)
-                .build();
+        LOGGER.info("Data parsing completed");
+        return champions;
     }
 
-    /* For scalable stats (health, attack, defence)
-     * Formula: BASE STAT * MULTIPLIER_1 * MULTIPLIER_2
-     * Ascension level | MULTIPLIER_1 | MULTIPLIER_2
-     *        1        |  1           |  2
-     *        2        |  1.60000002  |  1.89999998
-     *        3        |  2.43199992  |  1.79999995
-     *        4        |  3.50207996  |  1.70000005
-     *        5        |  4.76282883  |  1.70000005
-     *        6        |  6.47744703  |  1.70000005
+    /**
+     * Transform champions in the current thread (parallelism 1) or on a fork-join pool
+     *
+     * @param consumer receives the rows of each champion in the current thread, in static_data.json order
      */
-    private int calculateScalableStatValue(long scalableStat) {
-        return (int) Math.round(calculateBaseStatValue(scalableStat) * 6.47744703 * 1.70000005);
-    }
+    private void transformChampions(ChampionTransformer transformer, Consumer<ChampionRows> consumer) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        if (threads == 1) {
+            transformer.transform(consumer);
+            return;
+        }
 
-    private int calculateBaseStatValue(long stat) {
-        return (int) (stat / (Integer.MAX_VALUE * 2L - 1));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            transformer.transform(pool, consumer);
+        } finally {
+            pool.shutdown();
+        }
     }
 
 }
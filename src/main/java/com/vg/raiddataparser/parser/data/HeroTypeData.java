@@ -0,0 +1,149 @@
+package com.vg.raiddataparser.parser.data;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Fields of a HeroTypes entry (static_data.json) used to build a Champion
+ */
+public class HeroTypeData {
+
+    private int id;
+    private String nameKey;
+    private int element;
+    private int role;
+    private int fraction;
+    private int rarity;
+    private boolean awakenMaterials;
+
+    private long health;
+    private long attack;
+    private long defence;
+    private long speed;
+    private long resistance;
+    private long accuracy;
+    private long criticalChance;
+    private long criticalDamage;
+    private long criticalHeal;
+
+    private int[] skillTypeIds;
+
+    /**
+     * Read the used fields from a HeroTypes node
+     *
+     * @param nodeChampion HeroTypes entry
+     * @return HeroTypeData instance
+     */
+    public static HeroTypeData fromNode(JsonNode nodeChampion) {
+        HeroTypeData hero = new HeroTypeData();
+
+        hero.id = nodeChampion.get("Id").intValue();
+        hero.nameKey = nodeChampion.get("Name").get("Key").textValue();
+        hero.element = nodeChampion.get("Element").intValue();
+        hero.role = nodeChampion.get("Role").intValue();
+        hero.fraction = nodeChampion.get("Fraction").intValue();
+        hero.rarity = nodeChampion.get("Rarity").intValue();
+        hero.awakenMaterials = nodeChampion.has("AwakenMaterials");
+
+        JsonNode nodeBaseStats = nodeChampion.get("BaseStats");
+        hero.health = nodeBaseStats.get("Health").longValue();
+        hero.attack = nodeBaseStats.get("Attack").longValue();
+        hero.defence = nodeBaseStats.get("Defence").longValue();
+        hero.speed = nodeBaseStats.get("Speed").longValue();
+        hero.resistance = nodeBaseStats.get("Resistance").longValue();
+        hero.accuracy = nodeBaseStats.get("Accuracy").longValue();
+        hero.criticalChance = nodeBaseStats.get("CriticalChance").longValue();
+        hero.criticalDamage = nodeBaseStats.get("CriticalDamage").longValue();
+        hero.criticalHeal = nodeBaseStats.get("CriticalHeal").longValue();
+
+        // findPath() because get() will cause an error if specified node doesn't exist
+        JsonNode nodeSkillTypeIds = nodeChampion.findPath("SkillTypeIds");
+        if (nodeSkillTypeIds.isArray()) {
+            hero.skillTypeIds = new int[nodeSkillTypeIds.size()];
+            for (int i = 0; i < hero.skillTypeIds.length; i++) {
+                hero.skillTypeIds[i] = nodeSkillTypeIds.get(i).intValue();
+            }
+        }
+
+        return hero;
+    }
+
+    /**
+     * Filter out unwanted champions
+     * - with AwakenMaterials (not fully ascended, where applicable)
+     * - with faction value 0 (bosses, demon lord, pve waves)
+     *
+     * @return true if the champion has to be parsed
+     */
+    public boolean isPlayable() {
+        return !awakenMaterials && fraction != 0;
+    }
+
+    public int getId() { return id; }
+
+    public String getNameKey() { return nameKey; }
+
+    public int getElement() { return element; }
+
+    public int getRole() { return role; }
+
+    public int getFraction() { return fraction; }
+
+    public int getRarity() { return rarity; }
+
+    public long getHealth() { return health; }
+
+    public long getAttack() { return attack; }
+
+    public long getDefence() { return defence; }
+
+    public long getSpeed() { return speed; }
+
+    public long getResistance() { return resistance; }
+
+    public long getAccuracy() { return accuracy; }
+
+    public long getCriticalChance() { return criticalChance; }
+
+    public long getCriticalDamage() { return criticalDamage; }
+
+    public long getCriticalHeal() { return criticalHeal; }
+
+    /**
+     * @return skill IDs of the champion, null if the node has no SkillTypeIds
+     */
+    public int[] getSkillTypeIds() { return skillTypeIds; }
+
+    void setId(int id) { this.id = id; }
+
+    void setNameKey(String nameKey) { this.nameKey = nameKey; }
+
+    void setElement(int element) { this.element = element; }
+
+    void setRole(int role) { this.role = role; }
+
+    void setFraction(int fraction) { this.fraction = fraction; }
+
+    void setRarity(int rarity) { this.rarity = rarity; }
+
+    void setAwakenMaterials(boolean awakenMaterials) { this.awakenMaterials = awakenMaterials; }
+
+    void setHealth(long health) { this.health = health; }
+
+    void setAttack(long attack) { this.attack = attack; }
+
+    void setDefence(long defence) { this.defence = defence; }
+
+    void setSpeed(long speed) { this.speed = speed; }
+
+    void setResistance(long resistance) { this.resistance = resistance; }
+
+    void setAccuracy(long accuracy) { this.accuracy = accuracy; }
+
+    void setCriticalChance(long criticalChance) { this.criticalChance = criticalChance; }
+
+    void setCriticalDamage(long criticalDamage) { this.criticalDamage = criticalDamage; }
+
+    void setCriticalHeal(long criticalHeal) { this.criticalHeal = criticalHeal; }
+
+    void setSkillTypeIds(int[] skillTypeIds) { this.skillTypeIds = skillTypeIds; }
+}
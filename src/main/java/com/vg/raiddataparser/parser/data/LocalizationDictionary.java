@@ -0,0 +1,164 @@
+package com.vg.raiddataparser.parser.data;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Localized texts (StaticDataLocalization) by key
+ * Open addressing (linear probing) table built once per run, so that each lookup is a hash probe instead of a
+ * JsonNode.findPath() walk through the whole localization tree.
+ * Repeated texts are stored once (values interned in the dictionary).
+ */
+public class LocalizationDictionary {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private String[] keys;
+    private String[] values;
+    private int[] hashes;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    // Canonical instances of the values (interning), dropped once the dictionary is built
+    private Map<String, String> internedValues = new HashMap<>();
+
+    public LocalizationDictionary() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Build the dictionary from the StaticDataLocalization node
+     * Nodes are visited in the same order as JsonNode.findPath(), so the text found for a key is the same.
+     *
+     * @param nodeStaticDataLocalization StaticDataLocalization node
+     * @return LocalizationDictionary instance
+     */
+    public static LocalizationDictionary fromNode(JsonNode nodeStaticDataLocalization) {
+        LocalizationDictionary dictionary = new LocalizationDictionary();
+        dictionary.addNode(nodeStaticDataLocalization);
+        return dictionary.build();
+    }
+
+    private void addNode(JsonNode node) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getValue().isTextual()) {
+                    add(field.getKey(), field.getValue().textValue());
+                } else {
+                    addNode(field.getValue());
+                }
+            }
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                addNode(element);
+            }
+        }
+    }
+
+    /**
+     * Add a text to the dictionary, only if the key has no text yet (first occurrence wins, same as findPath())
+     *
+     * @param key  localization key
+     * @param text localized text
+     */
+    public void add(String key, String text) {
+        if (key == null || text == null) {
+            return;
+        }
+
+        int hash = hash(key);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = intern(text);
+        hashes[slot] = hash;
+        if (++size > resizeThreshold) {
+            resize();
+        }
+    }
+
+    /**
+     * Release the data only used while adding texts
+     *
+     * @return this dictionary
+     */
+    public LocalizationDictionary build() {
+        internedValues = null;
+        return this;
+    }
+
+    /**
+     * @param key localization key (e.g. champion name key)
+     * @return localized text for the key, null if not found
+     */
+    public String get(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        int hash = hash(key);
+        int slot = hash & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() { return size; }
+
+    private String intern(String text) {
+        if (internedValues == null) {
+            return text;
+        }
+        String interned = internedValues.putIfAbsent(text, text);
+        return interned == null ? text : interned;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        String[] oldValues = values;
+        int[] oldHashes = hashes;
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = oldHashes[i] & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new String[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
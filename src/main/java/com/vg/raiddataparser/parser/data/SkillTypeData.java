@@ -0,0 +1,71 @@
+package com.vg.raiddataparser.parser.data;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Fields of a SkillTypes entry (static_data.json) used to build a Skill
+ */
+public class SkillTypeData {
+
+    private int id;
+    private int revision;
+    private int cooldown;
+    private int visibility;
+    private int group;
+    private String multiplierFormula;
+    private String nameKey;
+    private String descriptionKey;
+
+    /**
+     * Read the used fields from a SkillTypes node
+     *
+     * @param nodeSkill SkillTypes entry
+     * @return SkillTypeData instance
+     */
+    public static SkillTypeData fromNode(JsonNode nodeSkill) {
+        SkillTypeData skill = new SkillTypeData();
+
+        skill.id = nodeSkill.get("Id").intValue();
+        skill.revision = nodeSkill.get("Revision").intValue();
+        skill.cooldown = nodeSkill.get("Cooldown").intValue();
+        skill.visibility = nodeSkill.get("Visibility").intValue();
+        skill.group = nodeSkill.get("Group").intValue();
+        skill.multiplierFormula = nodeSkill.findPath("MultiplierFormula").textValue();
+        skill.nameKey = nodeSkill.get("Name").get("Key").textValue();
+        skill.descriptionKey = nodeSkill.get("Description").get("Key").textValue();
+
+        return skill;
+    }
+
+    public int getId() { return id; }
+
+    public int getRevision() { return revision; }
+
+    public int getCooldown() { return cooldown; }
+
+    public int getVisibility() { return visibility; }
+
+    public int getGroup() { return group; }
+
+    public String getMultiplierFormula() { return multiplierFormula; }
+
+    public String getNameKey() { return nameKey; }
+
+    public String getDescriptionKey() { return descriptionKey; }
+
+    void setId(int id) { this.id = id; }
+
+    void setRevision(int revision) { this.revision = revision; }
+
+    void setCooldown(int cooldown) { this.cooldown = cooldown; }
+
+    void setVisibility(int visibility) { this.visibility = visibility; }
+
+    void setGroup(int group) { this.group = group; }
+
+    void setMultiplierFormula(String multiplierFormula) { this.multiplierFormula = multiplierFormula; }
+
+    void setNameKey(String nameKey) { this.nameKey = nameKey; }
+
+    void setDescriptionKey(String descriptionKey) { this.descriptionKey = descriptionKey; }
+}
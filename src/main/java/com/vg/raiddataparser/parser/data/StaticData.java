@@ -0,0 +1,112 @@
+package com.vg.raiddataparser.parser.data;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.vg.raiddataparser.metrics.RefreshMetrics;
+import com.vg.raiddataparser.util.IntObjectMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Subset of static_data.json needed to build champions and skills
+ */
+public class StaticData {
+
+    private static final String JSON_CHAMPION_DATA_NODE = "HeroData";
+    private static final String JSON_CHAMPIONS_NODE = "HeroTypes";
+    private static final String JSON_SKILL_DATA_NODE = "SkillData";
+    private static final String JSON_SKILLS_NODE = "SkillTypes";
+    private static final String JSON_STATIC_DATA_LOCALIZATION_NODE = "StaticDataLocalization";
+
+    private final List<HeroTypeData> heroTypes = new ArrayList<>();
+    private final IntObjectMap<SkillTypeData> skillTypes = new IntObjectMap<>();
+    private final LocalizationDictionary localizedTexts;
+
+    StaticData() {
+        this(new LocalizationDictionary());
+    }
+
+    private StaticData(LocalizationDictionary localizedTexts) {
+        this.localizedTexts = localizedTexts;
+    }
+
+    /**
+     * Read static data from the whole JSON tree
+     * Keeps the playable champions, their skills and the localized texts.
+     *
+     * @param rootNode static_data.json root node
+     * @return StaticData instance
+     */
+    public static StaticData fromNode(JsonNode rootNode) {
+        StaticData staticData = new StaticData(
+                LocalizationDictionary.fromNode(rootNode.get(JSON_STATIC_DATA_LOCALIZATION_NODE)));
+
+        // Index the SkillTypes nodes by skill ID (one pass), so that each champion's skill is found without looping
+        // through all the skills. A skill shared by several champions is found for each of them.
+        JsonNode nodeSkills = rootNode.get(JSON_SKILL_DATA_NODE).get(JSON_SKILLS_NODE);
+        IntObjectMap<JsonNode> nodeSkillsById = new IntObjectMap<>(nodeSkills.size());
+        for (JsonNode nodeSkill : nodeSkills) {
+            nodeSkillsById.putIfAbsent(nodeSkill.findPath("Id").intValue(), nodeSkill);
+        }
+
+        for (JsonNode nodeChampion : rootNode.get(JSON_CHAMPION_DATA_NODE).get(JSON_CHAMPIONS_NODE)) {
+            HeroTypeData hero = HeroTypeData.fromNode(nodeChampion);
+            RefreshMetrics.championsParsed().increment();
+
+            if (!hero.isPlayable()) {
+                RefreshMetrics.championsFiltered().increment();
+            } else {
+                staticData.addHeroType(hero);
+
+                if (hero.getSkillTypeIds() != null) {
+                    for (int skillId : hero.getSkillTypeIds()) {
+                        JsonNode nodeSkill = nodeSkillsById.get(skillId);
+                        if (nodeSkill != null && !staticData.skillTypes.containsKey(skillId)) {
+                            staticData.skillTypes.put(skillId, SkillTypeData.fromNode(nodeSkill));
+                        }
+                    }
+                }
+            }
+        }
+
+        return staticData;
+    }
+
+    /**
+     * @return playable champions, in static_data.json order
+     */
+    public List<HeroTypeData> getHeroTypes() { return heroTypes; }
+
+    /**
+     * @param id ID of the skill
+     * @return SkillTypeData for the ID, null if not found
+     */
+    public SkillTypeData getSkillType(int id) {
+        return skillTypes.get(id);
+    }
+
+    /**
+     * @param key localization key (e.g. champion name key)
+     * @return localized text for the key, null if not found
+     */
+    public String getLocalizedText(String key) {
+        return localizedTexts.get(key);
+    }
+
+    void buildLocalizedTexts() {
+        localizedTexts.build();
+    }
+
+    void addHeroType(HeroTypeData hero) {
+        heroTypes.add(hero);
+    }
+
+    void addSkillType(SkillTypeData skill) {
+        skillTypes.putIfAbsent(skill.getId(), skill);
+    }
+
+    void addLocalizedText(String key, String text) {
+        // First occurrence wins, same as JsonNode.findPath()
+        localizedTexts.add(key, text);
+    }
+}
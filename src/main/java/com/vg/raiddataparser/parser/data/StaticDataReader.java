@@ -0,0 +1,416 @@
+package com.vg.raiddataparser.parser.data;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.vg.raiddataparser.metrics.RefreshMetrics;
+import com.vg.raiddataparser.util.IntObjectMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streaming reader for static_data.json
+ * Walks HeroData.HeroTypes, SkillData.SkillTypes and StaticDataLocalization token by token and only keeps the
+ * fields used to build champions and skills, instead of loading the whole JSON tree in memory.
+ * When the champions are read before the skills and texts (order of static_data.json), only the skills and texts
+ * referenced by playable champions are kept.
+ */
+public class StaticDataReader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaticDataReader.class.getName());
+
+    private static final String JSON_CHAMPION_DATA_NODE = "HeroData";
+    private static final String JSON_CHAMPIONS_NODE = "HeroTypes";
+    private static final String JSON_SKILL_DATA_NODE = "SkillData";
+    private static final String JSON_SKILLS_NODE = "SkillTypes";
+    private static final String JSON_STATIC_DATA_LOCALIZATION_NODE = "StaticDataLocalization";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private StaticData staticData;
+    private boolean championsRead;
+    private boolean skillsRead;
+    private IntObjectMap<Boolean> requiredSkillIds;
+    private Set<String> requiredKeys;
+
+    /**
+     * Read static data from the input stream (stream is closed afterwards)
+     *
+     * @param inputStream static_data.json content
+     * @return StaticData instance
+     * @throws IOException when the JSON can't be read
+     */
+    public StaticData read(InputStream inputStream) throws IOException {
+        LOGGER.info("Reading static data (streaming)");
+
+        staticData = new StaticData();
+        championsRead = false;
+        skillsRead = false;
+        requiredSkillIds = new IntObjectMap<>();
+        requiredKeys = new HashSet<>();
+
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected static data root object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+
+                switch (fieldName) {
+                    case JSON_CHAMPION_DATA_NODE:
+                        readArrayField(parser, JSON_CHAMPIONS_NODE, this::readHeroType);
+                        championsRead = true;
+                        break;
+                    case JSON_SKILL_DATA_NODE:
+                        readArrayField(parser, JSON_SKILLS_NODE, this::readSkillType);
+                        skillsRead = true;
+                        break;
+                    case JSON_STATIC_DATA_LOCALIZATION_NODE:
+                        readLocalization(parser);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+
+        staticData.buildLocalizedTexts();
+
+        LOGGER.info("Static data read: {} champions", staticData.getHeroTypes().size());
+        return staticData;
+    }
+
+    /**
+     * Read each element of the array in field arrayFieldName of the current object
+     */
+    private void readArrayField(JsonParser parser,
+            String arrayFieldName,
+            ValueReader elementReader) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+
+            if (arrayFieldName.equals(fieldName) && parser.currentToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    elementReader.read(parser);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readHeroType(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        HeroTypeData hero = new HeroTypeData();
+        boolean skillTypeIdsFound = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (fieldName) {
+                case "Id":
+                    hero.setId(parser.getValueAsInt());
+                    break;
+                case "Name":
+                    hero.setNameKey(readKey(parser));
+                    break;
+                case "Element":
+                    hero.setElement(parser.getValueAsInt());
+                    break;
+                case "Role":
+                    hero.setRole(parser.getValueAsInt());
+                    break;
+                case "Fraction":
+                    hero.setFraction(parser.getValueAsInt());
+                    break;
+                case "Rarity":
+                    hero.setRarity(parser.getValueAsInt());
+                    break;
+                case "AwakenMaterials":
+                    hero.setAwakenMaterials(true);
+                    parser.skipChildren();
+                    break;
+                case "BaseStats":
+                    readBaseStats(parser, hero);
+                    break;
+                case "SkillTypeIds":
+                    if (skillTypeIdsFound) {
+                        parser.skipChildren();
+                    } else {
+                        hero.setSkillTypeIds(readIntArray(parser));
+                        skillTypeIdsFound = true;
+                    }
+                    break;
+                default:
+                    // SkillTypeIds may be nested in another node (JsonNode.findPath())
+                    if (!skillTypeIdsFound) {
+                        skillTypeIdsFound = skipValue(parser, "SkillTypeIds",
+                                p -> hero.setSkillTypeIds(readIntArray(p)));
+                    } else {
+                        parser.skipChildren();
+                    }
+            }
+        }
+
+        RefreshMetrics.championsParsed().increment();
+        if (!hero.isPlayable()) {
+            RefreshMetrics.championsFiltered().increment();
+            return;
+        }
+
+        staticData.addHeroType(hero);
+        requiredKeys.add(hero.getNameKey());
+        if (hero.getSkillTypeIds() != null) {
+            for (int skillId : hero.getSkillTypeIds()) {
+                requiredSkillIds.put(skillId, Boolean.TRUE);
+            }
+        }
+    }
+
+    private void readBaseStats(JsonParser parser, HeroTypeData hero) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (fieldName) {
+                case "Health":
+                    hero.setHealth(parser.getValueAsLong());
+                    break;
+                case "Attack":
+                    hero.setAttack(parser.getValueAsLong());
+                    break;
+                case "Defence":
+                    hero.setDefence(parser.getValueAsLong());
+                    break;
+                case "Speed":
+                    hero.setSpeed(parser.getValueAsLong());
+                    break;
+                case "Resistance":
+                    hero.setResistance(parser.getValueAsLong());
+                    break;
+                case "Accuracy":
+                    hero.setAccuracy(parser.getValueAsLong());
+                    break;
+                case "CriticalChance":
+                    hero.setCriticalChance(parser.getValueAsLong());
+                    break;
+                case "CriticalDamage":
+                    hero.setCriticalDamage(parser.getValueAsLong());
+                    break;
+                case "CriticalHeal":
+                    hero.setCriticalHeal(parser.getValueAsLong());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private void readSkillType(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return;
+        }
+
+        SkillTypeData skill = new SkillTypeData();
+        boolean multiplierFormulaFound = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (fieldName) {
+                case "Id":
+                    skill.setId(parser.getValueAsInt());
+                    break;
+                case "Revision":
+                    skill.setRevision(parser.getValueAsInt());
+                    break;
+                case "Cooldown":
+                    skill.setCooldown(parser.getValueAsInt());
+                    break;
+                case "Visibility":
+                    skill.setVisibility(parser.getValueAsInt());
+                    break;
+                case "Group":
+                    skill.setGroup(parser.getValueAsInt());
+                    break;
+                case "Name":
+                    skill.setNameKey(readKey(parser));
+                    break;
+                case "Description":
+                    skill.setDescriptionKey(readKey(parser));
+                    break;
+                case "MultiplierFormula":
+                    if (multiplierFormulaFound) {
+                        parser.skipChildren();
+                    } else {
+                        skill.setMultiplierFormula(readText(parser));
+                        multiplierFormulaFound = true;
+                    }
+                    break;
+                default:
+                    // MultiplierFormula is nested in the skill effects (JsonNode.findPath())
+                    if (!multiplierFormulaFound) {
+                        multiplierFormulaFound = skipValue(parser, "MultiplierFormula",
+                                p -> skill.setMultiplierFormula(readText(p)));
+                    } else {
+                        parser.skipChildren();
+                    }
+            }
+        }
+
+        // Champions already read: keep only the skills of playable champions
+        if (championsRead && !requiredSkillIds.containsKey(skill.getId())) {
+            return;
+        }
+
+        staticData.addSkillType(skill);
+        requiredKeys.add(skill.getNameKey());
+        requiredKeys.add(skill.getDescriptionKey());
+    }
+
+    private void readLocalization(JsonParser parser) throws IOException {
+        // Champions and skills already read: keep only the texts they reference
+        boolean filtered = championsRead && skillsRead;
+
+        if (!parser.currentToken().isStructStart()) {
+            return;
+        }
+
+        int depth = 1;
+        while (depth > 0) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of static data localization");
+            }
+
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            } else if (token == JsonToken.VALUE_STRING) {
+                String key = parser.getCurrentName();
+                if (key != null && (!filtered || requiredKeys.contains(key))) {
+                    staticData.addLocalizedText(key, parser.getText());
+                }
+            }
+        }
+    }
+
+    /**
+     * Skip the current value, passing the first nested occurrence of fieldName to the reader
+     *
+     * @return true if the field was found
+     */
+    private static boolean skipValue(JsonParser parser, String fieldName, ValueReader reader) throws IOException {
+        if (!parser.currentToken().isStructStart()) {
+            return false;
+        }
+
+        boolean found = false;
+        int depth = 1;
+        while (depth > 0) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of input");
+            }
+
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            } else if (!found && token == JsonToken.FIELD_NAME && fieldName.equals(parser.getCurrentName())) {
+                parser.nextToken();
+                reader.read(parser);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Read the Key field of a localized node (e.g. "Name": { "Key": "..." })
+     */
+    private static String readKey(JsonParser parser) throws IOException {
+        String key = null;
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+
+            if ("Key".equals(fieldName)) {
+                key = readText(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @return text of the current value, null if it is not a string (same as JsonNode.textValue())
+     */
+    private static String readText(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * @return int values of the current array, null if it is not an array
+     */
+    private static int[] readIntArray(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+
+        int[] values = new int[8];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = parser.getValueAsInt();
+            parser.skipChildren();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    @FunctionalInterface
+    private interface ValueReader {
+        void read(JsonParser parser) throws IOException;
+    }
+}
@@ -0,0 +1,158 @@
+package com.vg.raiddataparser.parser.source;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Download static_data.json with a conditional, compressed request and keep it in a disk cache
+ * The last payload is stored with its validators (ETag, Last-Modified). When the server answers 304 Not Modified,
+ * isModified() returns false and the refresh is skipped. Validators are only saved by commit(), so a failed refresh
+ * is done again on the next run. The cached payload is read as a memory-mapped local file.
+ */
+public class CachingHttpStaticDataSource implements StaticDataSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachingHttpStaticDataSource.class.getName());
+
+    private static final String PAYLOAD_FILE_NAME = "static_data.json";
+    private static final String VALIDATORS_FILE_NAME = "static_data.properties";
+    private static final String URL_PROPERTY = "url";
+    private static final String ETAG_PROPERTY = "etag";
+    private static final String LAST_MODIFIED_PROPERTY = "lastModified";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+    private static final int READ_TIMEOUT_MILLIS = 60000;
+
+    private final URL url;
+    private final Path payloadFile;
+    private final Path validatorsFile;
+
+    // Validators of the downloaded payload, saved by commit()
+    private Properties pendingValidators;
+
+    /**
+     * @param url            URL of static_data.json
+     * @param cacheDirectory directory of the cached payload and validators
+     * @throws IOException when the URL is invalid or the directory can't be created
+     */
+    public CachingHttpStaticDataSource(String url, Path cacheDirectory) throws IOException {
+        this.url = new URL(url);
+        Files.createDirectories(cacheDirectory);
+        this.payloadFile = cacheDirectory.resolve(PAYLOAD_FILE_NAME);
+        this.validatorsFile = cacheDirectory.resolve(VALIDATORS_FILE_NAME);
+    }
+
+    @Override
+    public boolean isModified() throws IOException {
+        Properties validators = readValidators();
+
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+
+            // Validators only sent for the cached payload of the same URL
+            if (Files.exists(payloadFile) && url.toString().equals(validators.getProperty(URL_PROPERTY))) {
+                String etag = validators.getProperty(ETAG_PROPERTY);
+                String lastModified = validators.getProperty(LAST_MODIFIED_PROPERTY);
+                if (etag != null) {
+                    connection.setRequestProperty("If-None-Match", etag);
+                }
+                if (lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", lastModified);
+                }
+            }
+
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                LOGGER.info("Static data not modified since last refresh (HTTP 304)");
+                return false;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected HTTP status " + status + " while downloading " + url);
+            }
+
+            downloadPayload(connection);
+
+            pendingValidators = new Properties();
+            pendingValidators.setProperty(URL_PROPERTY, url.toString());
+            setIfPresent(pendingValidators, ETAG_PROPERTY, connection.getHeaderField("ETag"));
+            setIfPresent(pendingValidators, LAST_MODIFIED_PROPERTY, connection.getHeaderField("Last-Modified"));
+            return true;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+        if (!Files.exists(payloadFile)) {
+            throw new IOException("No cached static data in " + payloadFile.toAbsolutePath());
+        }
+        return new LocalFileStaticDataSource(payloadFile).open();
+    }
+
+    @Override
+    public void commit() throws IOException {
+        if (pendingValidators == null) {
+            return;
+        }
+
+        Path tempFile = Files.createTempFile(validatorsFile.getParent(), VALIDATORS_FILE_NAME, ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            pendingValidators.store(out, "Validators of " + PAYLOAD_FILE_NAME);
+        }
+        Files.move(tempFile, validatorsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pendingValidators = null;
+    }
+
+    @Override
+    public String getDescription() { return url + " (cache: " + payloadFile.toAbsolutePath() + ")"; }
+
+    /**
+     * Write the (decompressed) response body to the payload file
+     * Written to a temporary file first, so an interrupted download does not replace the cached payload.
+     */
+    private void downloadPayload(HttpURLConnection connection) throws IOException {
+        LOGGER.info("Downloading static data (Content-Encoding: {})", connection.getContentEncoding());
+
+        Path tempFile = Files.createTempFile(payloadFile.getParent(), PAYLOAD_FILE_NAME, ".tmp");
+        try {
+            try (InputStream body = "gzip".equalsIgnoreCase(connection.getContentEncoding())
+                    ? new GZIPInputStream(connection.getInputStream())
+                    : connection.getInputStream()) {
+                Files.copy(body, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(tempFile, payloadFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private Properties readValidators() throws IOException {
+        Properties validators = new Properties();
+        if (Files.exists(validatorsFile)) {
+            try (InputStream in = Files.newInputStream(validatorsFile)) {
+                validators.load(in);
+            }
+        }
+        return validators;
+    }
+
+    private static void setIfPresent(Properties properties, String key, String value) {
+        if (value != null) {
+            properties.setProperty(key, value);
+        }
+    }
+}
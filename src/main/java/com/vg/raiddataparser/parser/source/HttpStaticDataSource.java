@@ -0,0 +1,29 @@
+package com.vg.raiddataparser.parser.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ * Download static_data.json from a URL
+ */
+public class HttpStaticDataSource implements StaticDataSource {
+
+    private final URL url;
+
+    /**
+     * @param url URL of static_data.json
+     * @throws IOException when the URL is invalid
+     */
+    public HttpStaticDataSource(String url) throws IOException {
+        this.url = new URL(url);
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+        return url.openStream();
+    }
+
+    @Override
+    public String getDescription() { return url.toString(); }
+}
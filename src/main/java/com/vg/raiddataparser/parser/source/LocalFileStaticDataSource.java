@@ -0,0 +1,35 @@
+package com.vg.raiddataparser.parser.source;
+
+import com.vg.raiddataparser.util.ByteBufferInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read a local copy of static_data.json (no network)
+ * The file is memory-mapped: its content is read from the page cache, without copying it in a heap buffer first.
+ */
+public class LocalFileStaticDataSource implements StaticDataSource {
+
+    private final Path path;
+
+    public LocalFileStaticDataSource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public InputStream open() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ByteBufferInputStream(buffer);
+        }
+    }
+
+    @Override
+    public String getDescription() { return path.toAbsolutePath().toString(); }
+}
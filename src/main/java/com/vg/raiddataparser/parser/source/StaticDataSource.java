@@ -0,0 +1,41 @@
+package com.vg.raiddataparser.parser.source;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Source of the static_data.json content
+ */
+public interface StaticDataSource {
+
+    /**
+     * Check if the content changed since the last committed refresh
+     * Called before open(), the refresh is skipped when it returns false.
+     *
+     * @return true if the content has to be parsed
+     * @throws IOException when the content can't be checked
+     */
+    default boolean isModified() throws IOException {
+        return true;
+    }
+
+    /**
+     * Open the static_data.json content
+     *
+     * @return InputStream to be closed by the caller
+     * @throws IOException when the content can't be opened
+     */
+    InputStream open() throws IOException;
+
+    /**
+     * Record the opened content as the last refreshed one (called after a successful refresh)
+     *
+     * @throws IOException when the state can't be saved
+     */
+    default void commit() throws IOException {}
+
+    /**
+     * @return description of the source for logs (URL, file path)
+     */
+    String getDescription();
+}
@@ -0,0 +1,264 @@
+package com.vg.raiddataparser.repository;
+
+import com.vg.raiddataparser.diff.ContentHashes;
+import com.vg.raiddataparser.diff.DatasetDiff;
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Save all the champions and skills of a refresh in one transaction, with JDBC batching
+ * Full load: existing rows are deleted and all the entities are inserted. Incremental sync: the content hash stored on
+ * each row is compared with the hash of the parsed entity (computed by DiffEngine), and only added and modified rows
+ * are written, removed rows are deleted.
+ * Entities are persisted directly (their IDs are assigned, so CrudRepository.saveAll would merge them: one SELECT per
+ * entity before the INSERT), flushed about every batch size entities (one batched statement per entity type, ordered
+ * inserts and updates) and cleared so that the persistence context stays small.
+ * Once a new dataset version is committed, the second-level cache (entities, skills collections and query results) is
+ * evicted, so that readers never get rows of the previous version.
+ */
+@Component
+public class ChampionBulkLoader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChampionBulkLoader.class.getName());
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Entities flushed at once, same as the JDBC batch size
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize;
+
+    /**
+     * Save the champions and their skills
+     * A skill shared by several champions is saved once, with its first champion (as compared by DiffEngine).
+     *
+     * @param champions   champions with their skills
+     * @param diff        diff of the champions, for their content hashes and the dataset version
+     * @param incremental true to write only the changed rows, false to replace all the rows
+     */
+    public void load(List<Champion> champions, DatasetDiff diff, boolean incremental) {
+        Map<Integer, Skill> skills = new LinkedHashMap<>();
+        for (Champion champion : champions) {
+            for (Skill skill : champion.getSkills()) {
+                skills.putIfAbsent(skill.getId(), skill);
+            }
+        }
+
+        String version = diff.getVersion();
+
+        long start = System.nanoTime();
+        Sync sync = new TransactionTemplate(transactionManager).execute(status -> {
+            Sync transactionSync = incremental ? loadStoredHashes() : deleteAll();
+            write(champions, skills, diff, version, transactionSync);
+            transactionSync.deleteRemoved();
+            return transactionSync;
+        });
+
+        if (!incremental || sync.isModified()) {
+            evictCaches(version);
+        }
+
+        LOGGER.info((incremental ? "Synchronized" : "Loaded") + " database (dataset version " + version + ") in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Write the added and modified champions and skills (all of them after deleteAll())
+     */
+    private void write(List<Champion> champions,
+            Map<Integer, Skill> skills,
+            DatasetDiff diff,
+            String version,
+            Sync sync) {
+        ContentHashes championHashes = diff.getChampionHashes();
+        ContentHashes skillHashes = diff.getSkillHashes();
+        int pending = 0;
+        for (Champion champion : champions) {
+            // Skills are flushed with their champion: managed if written, else referenced (no lookup of the foreign key)
+            if (sync.write(champion, championHashes.getHashById(champion.getId()), version)) {
+                pending++;
+            }
+            for (Skill skill : champion.getSkills()) {
+                if (skills.get(skill.getId()) == skill && sync.write(skill, skillHashes.getHashById(skill.getId()), version)) {
+                    pending++;
+                }
+            }
+
+            if (pending >= batchSize) {
+                flushAndClear(sync);
+                pending = 0;
+            }
+        }
+        flushAndClear(sync);
+
+        LOGGER.info("Champions: " + sync.championsInserted + " inserted, " + sync.championsUpdated + " updated, "
+                + sync.storedChampions.size() + " deleted; skills: " + sync.skillsInserted + " inserted, "
+                + sync.skillsUpdated + " updated, " + sync.storedSkills.size() + " deleted");
+    }
+
+    /**
+     * Write the pending entities, then detach them (the skills get their champion back)
+     */
+    private void flushAndClear(Sync sync) {
+        entityManager.flush();
+        sync.restoreChampions();
+        entityManager.clear();
+    }
+
+    /**
+     * @return rows of the previous refreshes: content hash by ID
+     */
+    private Sync loadStoredHashes() {
+        Sync sync = new Sync();
+        for (Object[] row : entityManager.createQuery("select c.id, c.contentHash from Champion c", Object[].class)
+                .getResultList()) {
+            sync.storedChampions.put((Integer) row[0], (Long) row[1]);
+        }
+        for (Object[] row : entityManager.createQuery("select s.id, s.contentHash from Skill s", Object[].class)
+                .getResultList()) {
+            sync.storedSkills.put((Integer) row[0], (Long) row[1]);
+        }
+        return sync;
+    }
+
+    /**
+     * Delete the rows of the previous refreshes (full load)
+     */
+    private Sync deleteAll() {
+        entityManager.createQuery("delete from Skill").executeUpdate();
+        entityManager.createQuery("delete from Champion").executeUpdate();
+        return new Sync();
+    }
+
+    /**
+     * Evict all the second-level cache regions, once the transaction writing a new dataset version is committed
+     */
+    private void evictCaches(String version) {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        LOGGER.info("Evicted second-level cache for dataset version " + version);
+    }
+
+    /**
+     * Rows stored by the previous refreshes (content hash by ID), and the writes of this one
+     * Rows left in the maps once all the entities are written have been removed from the dataset.
+     */
+    private class Sync {
+
+        private final Map<Integer, Long> storedChampions = new HashMap<>();
+        private final Map<Integer, Long> storedSkills = new HashMap<>();
+        // Champion of the written skills whose champion is not written, replaced by a reference until the flush
+        private final Map<Skill, Champion> referencedChampions = new HashMap<>();
+
+        private int championsInserted;
+        private int championsUpdated;
+        private int skillsInserted;
+        private int skillsUpdated;
+
+        /**
+         * @return true if the champion was inserted or updated
+         */
+        boolean write(Champion champion, long hash, String version) {
+            Long storedHash = storedChampions.remove(champion.getId());
+            if (storedHash != null && storedHash == hash) {
+                return false;
+            }
+
+            champion.setContentHash(hash, version);
+            if (storedHash == null) {
+                entityManager.persist(champion);
+                championsInserted++;
+            } else {
+                // Reattached as modified: UPDATE without loading the row first (unlike merge)
+                entityManager.unwrap(Session.class).update(champion);
+                championsUpdated++;
+            }
+            return true;
+        }
+
+        /**
+         * @return true if the skill was inserted or updated
+         */
+        boolean write(Skill skill, long hash, String version) {
+            Long storedHash = storedSkills.remove(skill.getId());
+            if (storedHash != null && storedHash == hash) {
+                return false;
+            }
+
+            skill.setContentHash(hash, version);
+            Champion champion = skill.getChampion();
+            if (!entityManager.contains(champion)) {
+                // Unchanged champion: reference without a SELECT (a detached champion is looked up at flush)
+                skill.setChampion(entityManager.getReference(Champion.class, champion.getId()));
+                referencedChampions.put(skill, champion);
+            }
+            if (storedHash == null) {
+                entityManager.persist(skill);
+                skillsInserted++;
+            } else {
+                entityManager.unwrap(Session.class).update(skill);
+                skillsUpdated++;
+            }
+            return true;
+        }
+
+        /**
+         * Give the skills written with a champion reference their champion back, once flushed
+         */
+        void restoreChampions() {
+            for (Map.Entry<Skill, Champion> entry : referencedChampions.entrySet()) {
+                entry.getKey().setChampion(entry.getValue());
+            }
+            referencedChampions.clear();
+        }
+
+        /**
+         * @return true if rows were inserted, updated or deleted
+         */
+        boolean isModified() {
+            return championsInserted + championsUpdated + skillsInserted + skillsUpdated > 0
+                    || !storedChampions.isEmpty()
+                    || !storedSkills.isEmpty();
+        }
+
+        /**
+         * Delete the rows removed from the dataset, skills first (foreign key to their champion)
+         */
+        void deleteRemoved() {
+            delete("delete from Skill s where s.id in :ids", new ArrayList<>(storedSkills.keySet()));
+            delete("delete from Champion c where c.id in :ids", new ArrayList<>(storedChampions.keySet()));
+        }
+
+        private void delete(String query, List<Integer> ids) {
+            for (int start = 0; start < ids.size(); start += batchSize) {
+                entityManager.createQuery(query)
+                        .setParameter("ids", ids.subList(start, Math.min(start + batchSize, ids.size())))
+                        .executeUpdate();
+            }
+        }
+    }
+}
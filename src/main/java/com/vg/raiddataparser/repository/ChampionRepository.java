@@ -1,7 +1,17 @@
 package com.vg.raiddataparser.repository;
 
 import com.vg.raiddataparser.model.champion.Champion;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+
 public interface ChampionRepository extends CrudRepository<Champion, Integer> {
+
+    /**
+     * @return all the champions, result cached in the query cache until the next dataset version
+     */
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Iterable<Champion> findAll();
 }
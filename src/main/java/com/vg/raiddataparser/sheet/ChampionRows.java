@@ -0,0 +1,76 @@
+package com.vg.raiddataparser.sheet;
+
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows of the Multipliers, Champions and Skills sheets for one champion
+ * Built independently from the sheets values, then added to them in champion order.
+ */
+public class ChampionRows {
+
+    private final Champion champion;
+    private final List<List<Object>> multiplierRows;
+    private final List<List<Object>> championRows;
+    private final List<List<Object>> skillRows;
+    private final List<String> skillRowKeys;
+
+    public ChampionRows(Champion champion,
+            List<List<Object>> multiplierRows,
+            List<List<Object>> championRows,
+            List<List<Object>> skillRows,
+            List<String> skillRowKeys) {
+        this.champion = champion;
+        this.multiplierRows = multiplierRows;
+        this.championRows = championRows;
+        this.skillRows = skillRows;
+        this.skillRowKeys = skillRowKeys;
+    }
+
+    /**
+     * Create the rows of the three sheets for a champion and its skills, without adding them to the sheets
+     * Can be called from several threads.
+     *
+     * @param champion        champion with its skills
+     * @param multiplierSheet Multipliers sheet
+     * @param championSheet   Champions sheet
+     * @param skillSheet      Skills sheet
+     * @return ChampionRows instance
+     */
+    public static ChampionRows create(Champion champion,
+            RaidSheet multiplierSheet,
+            RaidSheet championSheet,
+            RaidSheet skillSheet) {
+        List<List<Object>> skillRows = new ArrayList<>();
+        List<String> skillRowKeys = new ArrayList<>();
+        for (Skill skill : champion.getSkills()) {
+            List<List<Object>> rows = skillSheet.buildRows(skill);
+            skillRows.addAll(rows);
+            for (int i = 0; i < rows.size(); i++) {
+                skillRowKeys.add(skillSheet.getRowKey(skill));
+            }
+        }
+
+        return new ChampionRows(champion,
+                multiplierSheet.buildRows(champion),
+                championSheet.buildRows(champion),
+                skillRows,
+                skillRowKeys);
+    }
+
+    public Champion getChampion() { return champion; }
+
+    public List<List<Object>> getMultiplierRows() { return multiplierRows; }
+
+    public List<List<Object>> getChampionRows() { return championRows; }
+
+    public List<List<Object>> getSkillRows() { return skillRows; }
+
+    /**
+     * @return key of each skill row (see RaidSheet.getRowKey())
+     */
+    public List<String> getSkillRowKeys() { return skillRowKeys; }
+}
@@ -10,6 +10,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -44,7 +45,7 @@ public class ChampionSheet extends RaidSheet {
     }
 
     @Override
-    public void addValueToList(Object o) {
+    public List<List<Object>> createRows(Object o) {
         Champion c = (Champion) o;
 
         // Add champion only if:
@@ -53,7 +54,7 @@ public class ChampionSheet extends RaidSheet {
         if (!c.getName().trim().isEmpty() && !c.getName().toLowerCase().contains("hero")) {
             LOGGER.info("Adding champion to list: " + c.getName());
 
-            values.add(Arrays.asList(
+            return Collections.singletonList(Arrays.asList(
                     c.getName(),
                     ChampionFaction.getName(c.getFaction()),
                     ChampionRarity.getName(c.getRarity()),
@@ -70,6 +71,13 @@ public class ChampionSheet extends RaidSheet {
                     c.getCriticalHeal()
             ));
         }
+
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getRowKey(Object o) {
+        return String.valueOf(((Champion) o).getId());
     }
 
-}
\ No newline at end of file
+}
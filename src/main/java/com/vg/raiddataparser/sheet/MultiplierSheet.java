@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class MultiplierSheet extends RaidSheet {
@@ -35,9 +36,8 @@ public class MultiplierSheet extends RaidSheet {
     }
 
     @Override
-    public void addValueToList(Object o) {
+    public List<List<Object>> createRows(Object o) {
         Champion c = (Champion) o;
-        List<Object> rowValues = null;
 
         // Add multipliers only if:
         // - champion name is not empty
@@ -45,7 +45,7 @@ public class MultiplierSheet extends RaidSheet {
         if (!c.getName().trim().isEmpty() && !c.getName().toLowerCase().contains("hero")) {
             LOGGER.info("Adding multipliers");
 
-            rowValues = new ArrayList<>();
+            List<Object> rowValues = new ArrayList<>();
             rowValues.add(c.getName());
 
             for (Skill s : c.getSkills()) {
@@ -54,9 +54,16 @@ public class MultiplierSheet extends RaidSheet {
                     rowValues.add(s.getMultiplierFormula() == null ? "[None]" : s.getMultiplierFormula());
                 }
             }
+
+            return Collections.singletonList(rowValues);
         }
 
-        values.add(rowValues);
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getRowKey(Object o) {
+        return String.valueOf(((Champion) o).getId());
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.vg.raiddataparser.sheet;
+
+import com.vg.raiddataparser.diff.ContentHasher;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Key and content hash of each row of a sheet, in sheet order (first row after the header row first)
+ * Rows published by a refresh, compared with the rows of the next refresh (see SheetDelta).
+ */
+public class PublishedRows {
+
+    private final String[] keys;
+    private final long[] hashes;
+
+    PublishedRows(String[] keys, long[] hashes) {
+        this.keys = keys;
+        this.hashes = hashes;
+    }
+
+    /**
+     * @param keys   key of each row
+     * @param values rows
+     * @return PublishedRows instance
+     */
+    public static PublishedRows of(List<String> keys, List<List<Object>> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("Expected one key per row: "
+                    + keys.size() + " keys, " + values.size() + " rows");
+        }
+
+        String[] rowKeys = keys.toArray(new String[0]);
+        long[] hashes = new long[values.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = ContentHasher.hash(values.get(i));
+        }
+        return new PublishedRows(rowKeys, hashes);
+    }
+
+    public int size() { return keys.length; }
+
+    public String getKey(int row) { return keys[row]; }
+
+    public long getHash(int row) { return hashes[row]; }
+
+    static PublishedRows read(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        String[] keys = new String[size];
+        long[] hashes = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = in.readUTF();
+            hashes[i] = in.readLong();
+        }
+        return new PublishedRows(keys, hashes);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            out.writeUTF(keys[i]);
+            out.writeLong(hashes[i]);
+        }
+    }
+
+    /**
+     * Builds PublishedRows row by row (rows don't need to be kept)
+     */
+    public static class Builder {
+
+        private final List<String> keys = new ArrayList<>();
+        private long[] hashes = new long[64];
+
+        public Builder add(String key, List<Object> row) {
+            if (keys.size() == hashes.length) {
+                hashes = Arrays.copyOf(hashes, hashes.length * 2);
+            }
+            hashes[keys.size()] = ContentHasher.hash(row);
+            keys.add(key);
+            return this;
+        }
+
+        public PublishedRows build() {
+            return new PublishedRows(keys.toArray(new String[0]), Arrays.copyOf(hashes, keys.size()));
+        }
+    }
+}
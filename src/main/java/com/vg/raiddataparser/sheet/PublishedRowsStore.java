@@ -0,0 +1,96 @@
+package com.vg.raiddataparser.sheet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rows published to each sheet by the previous refresh, persisted in a file (delta publishing)
+ */
+public class PublishedRowsStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PublishedRowsStore.class.getName());
+
+    private static final int FILE_MAGIC = 0x52445052; // "RDPR"
+    private static final int FILE_VERSION = 1;
+
+    private final Path rowsFile;
+
+    /**
+     * @param rowsFile file of the rows published by the previous refresh
+     */
+    public PublishedRowsStore(Path rowsFile) {
+        this.rowsFile = rowsFile;
+    }
+
+    /**
+     * @param spreadsheetId ID of the spreadsheet the rows must have been published to
+     * @return published rows by sheet title (empty if there is no file, or if it belongs to another spreadsheet)
+     * @throws IOException when the file can't be read
+     */
+    public Map<String, PublishedRows> load(String spreadsheetId) throws IOException {
+        Map<String, PublishedRows> rowsBySheet = new LinkedHashMap<>();
+        if (!Files.exists(rowsFile)) {
+            LOGGER.info("No published rows in " + rowsFile.toAbsolutePath());
+            return rowsBySheet;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(rowsFile)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) {
+                throw new IOException("Unsupported published rows file " + rowsFile.toAbsolutePath());
+            }
+            if (!in.readUTF().equals(spreadsheetId)) {
+                LOGGER.info("Published rows belong to another spreadsheet");
+                return rowsBySheet;
+            }
+
+            int sheetCount = in.readInt();
+            for (int i = 0; i < sheetCount; i++) {
+                String title = in.readUTF();
+                rowsBySheet.put(title, PublishedRows.read(in));
+            }
+        }
+        return rowsBySheet;
+    }
+
+    /**
+     * Persist the published rows (previous rows of the next refresh)
+     * Written to a temporary file then moved, so the file is never partially written.
+     *
+     * @param spreadsheetId ID of the spreadsheet the rows were published to
+     * @param rowsBySheet   published rows by sheet title
+     * @throws IOException when the file can't be written
+     */
+    public void save(String spreadsheetId, Map<String, PublishedRows> rowsBySheet) throws IOException {
+        Path parent = rowsFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        Path tempFile = Files.createTempFile(parent, rowsFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeUTF(spreadsheetId);
+                out.writeInt(rowsBySheet.size());
+                for (Map.Entry<String, PublishedRows> entry : rowsBySheet.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().write(out);
+                }
+            }
+            Files.move(tempFile, rowsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -1,11 +1,12 @@
 package com.vg.raiddataparser.sheet;
 
 import com.google.api.services.sheets.v4.model.*;
-import com.vg.raiddataparser.googleservices.sheets.GoogleSheetsService;
+import com.vg.raiddataparser.googleservices.sheets.SheetsBatch;
+import com.vg.raiddataparser.metrics.RefreshMetrics;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -13,17 +14,47 @@ import java.util.List;
 public abstract class RaidSheet {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RaidSheet.class.getName());
-    private final GoogleSheetsService sheetsService = new GoogleSheetsService();
     public List<List<Object>> values;
     private final String title;
     private final int index;
     private final List<String> headerRowValues;
+    private final Timer rowsTimer;
+    // Key of each row of values (delta publishing)
+    private final List<String> rowKeys = new ArrayList<>();
 
 
     public RaidSheet(String title, int index, List<String> headerRowValues) {
         this.title = title;
         this.index = index;
         this.headerRowValues = headerRowValues;
+        this.rowsTimer = RefreshMetrics.sheetRowsTimer(title);
+    }
+
+    /**
+     * Create the rows for an object, without adding them to the list of values
+     * Does not change the sheet, can be called from several threads.
+     *
+     * @param o Object to create rows for
+     * @return rows for the object (empty if the object is filtered out)
+     */
+    public abstract List<List<Object>> createRows(Object o);
+
+    /**
+     * Key of the rows created for an object, identifying them across refreshes (e.g. champion ID)
+     *
+     * @param o Object the rows are created for
+     * @return row key, unique in the sheet
+     */
+    public abstract String getRowKey(Object o);
+
+    /**
+     * Create the rows for an object (timed, see createRows()), without adding them to the list of values
+     *
+     * @param o Object to create rows for
+     * @return rows for the object (empty if the object is filtered out)
+     */
+    public List<List<Object>> buildRows(Object o) {
+        return rowsTimer.record(() -> createRows(o));
     }
 
     /**
@@ -31,7 +62,42 @@ public abstract class RaidSheet {
      *
      * @param o Object to be added
      */
-    public abstract void addValueToList(Object o);
+    public void addValueToList(Object o) {
+        addRows(buildRows(o), getRowKey(o));
+    }
+
+    /**
+     * Add rows to list of values (values to be written to the sheet)
+     *
+     * @param rows rows created by createRows()
+     * @param key  key of the rows (getRowKey() of the object)
+     */
+    public void addRows(List<List<Object>> rows, String key) {
+        values.addAll(rows);
+        for (int i = 0; i < rows.size(); i++) {
+            rowKeys.add(key);
+        }
+    }
+
+    /**
+     * Add rows to list of values (values to be written to the sheet)
+     *
+     * @param rows rows created by createRows()
+     * @param keys key of each row
+     */
+    public void addRows(List<List<Object>> rows, List<String> keys) {
+        values.addAll(rows);
+        rowKeys.addAll(keys);
+    }
+
+    /**
+     * @return key and content hash of each row of values
+     */
+    public PublishedRows getPublishedRows() {
+        return PublishedRows.of(rowKeys, values);
+    }
+
+    public String getTitle() { return title; }
 
     /**
      * Create header row
@@ -80,68 +146,108 @@ public abstract class RaidSheet {
     }
 
     /**
-     * Write values to sheet
+     * Add all the values to a batch, written from the second row of the sheet. The rows of an existing sheet are
+     * padded and its rows after the last row are deleted, so that no previous value is left.
      *
-     * @param spreadsheetId Spreadsheet Id
-     * @throws IOException when writing values in sheet (Sheet service)
+     * @param batch            batch of the spreadsheet
+     * @param previousRowCount number of rows (header row excluded) already in the sheet, 0 for a new sheet
      */
-    public void writeValuesToSheet(String spreadsheetId) throws IOException {
-        try {
-            ValueRange body = new ValueRange().setValues(values);
-
-            sheetsService.appendValues(spreadsheetId, title, body);
-        } catch (IOException e) {
-            throw new IOException("Error while writing to sheet " + title, e);
+    public void addValuesToBatch(SheetsBatch batch, int previousRowCount) {
+        addStaleRowsToBatch(batch, values.size(), previousRowCount);
+        List<List<Object>> rows = values;
+        if (previousRowCount > 0) {
+            rows = new ArrayList<>(values.size());
+            for (List<Object> row : values) {
+                rows.add(padRow(row));
+            }
         }
+        batch.updateValues(title + "!A2:Z", rows);
     }
 
     /**
-     * Update values
+     * Add the deletion of the previous rows after the last written row to a batch
      *
-     * @param spreadsheetId Spreadsheet Id
-     * @throws IOException when updating values in sheet (Sheets service)
+     * @param batch            batch of the spreadsheet
+     * @param rowCount         number of rows written (header row excluded)
+     * @param previousRowCount number of rows (header row excluded) in the sheet before the rows were written
      */
-    public void updateValues(String spreadsheetId) throws IOException {
-        try {
-            ValueRange body = new ValueRange().setValues(values);
-            String range = title + "!A2:Z";
-
-            sheetsService.updateValues(spreadsheetId, range, body);
-        } catch (IOException e) {
-            throw new IOException("Error while updating sheet " + title, e);
+    public void addStaleRowsToBatch(SheetsBatch batch, int rowCount, int previousRowCount) {
+        // Row 0 is the header row
+        if (previousRowCount > rowCount) {
+            batch.deleteRows(index, rowCount + 1, previousRowCount + 1);
         }
     }
 
     /**
-     * Add banding (alternating colors) to the sheet
-     * All rows except header row
+     * Add the changes since the previously published rows to a batch: deleted and inserted rows, values of the added
+     * and modified rows. All the values are written if the rows can't be matched (see addValuesToBatch()).
      *
-     * @param spreadsheetId   Spreadsheet Id
-     * @param headerColor     Color for the header row
-     * @param firstBandColor  Color for the first band
-     * @param secondBandColor Color for the second band
-     * @throws IOException when adding banding to the sheet
+     * @param batch    batch of the spreadsheet
+     * @param previous rows published by the previous refresh
+     */
+    public void addDeltaToBatch(SheetsBatch batch, PublishedRows previous) {
+        SheetDelta delta = SheetDelta.compute(previous, getPublishedRows());
+        if (delta == null) {
+            LOGGER.info("Rows of sheet " + title + " can't be matched with the previous rows, writing all rows");
+            addValuesToBatch(batch, previous.size());
+            return;
+        }
+
+        LOGGER.info("Changes in sheet " + title + ": " + delta);
+        // Row 0 is the header row
+        for (SheetDelta.RowRange range : delta.getDeletedRows()) {
+            batch.deleteRows(index, range.getStart() + 1, range.getEnd() + 1);
+        }
+        for (SheetDelta.RowRange range : delta.getInsertedRows()) {
+            batch.insertRows(index, range.getStart() + 1, range.getEnd() + 1);
+        }
+        for (SheetDelta.RowRange range : delta.getWrittenRows()) {
+            List<List<Object>> rows = new ArrayList<>(range.getEnd() - range.getStart());
+            for (int i = range.getStart(); i < range.getEnd(); i++) {
+                rows.add(padRow(values.get(i)));
+            }
+            batch.updateValues(title + "!A" + (range.getStart() + 2) + ":Z" + (range.getEnd() + 1), rows);
+        }
+    }
+
+    /**
+     * @return row with at least one value per header column (empty strings), so that a shorter row clears the
+     * previous values of a modified row
      */
-    public void addBanding(String spreadsheetId,
+    public List<Object> padRow(List<Object> row) {
+        int size = row == null ? 0 : row.size();
+        if (size >= headerRowValues.size()) {
+            return row;
+        }
+
+        List<Object> paddedRow = new ArrayList<>(headerRowValues.size());
+        if (row != null) {
+            paddedRow.addAll(row);
+        }
+        while (paddedRow.size() < headerRowValues.size()) {
+            paddedRow.add("");
+        }
+        return paddedRow;
+    }
+
+    /**
+     * Add banding (alternating colors) of the sheet to a batch
+     */
+    public void addBandingToBatch(SheetsBatch batch,
             Color headerColor,
             Color firstBandColor,
-            Color secondBandColor) throws IOException {
-        try {
-            sheetsService.addBanding(spreadsheetId, index, title, headerColor, firstBandColor, secondBandColor);
-        } catch (IOException e) {
-            throw new IOException("Error while adding banding to sheet " + title, e);
-        }
+            Color secondBandColor) {
+        batch.addBanding(index, title, headerColor, firstBandColor, secondBandColor);
     }
 
-    public void updateBanding(String spreadsheetId,
+    /**
+     * Update the banding of the sheet in a batch
+     */
+    public void updateBandingInBatch(SheetsBatch batch,
             Color headerColor,
             Color firstBandColor,
-            Color secondBandColor) throws IOException {
-        try {
-            sheetsService.updateBanding(spreadsheetId, index, title, headerColor, firstBandColor, secondBandColor);
-        } catch (IOException e) {
-            throw new IOException("Error while updating banding to sheet " + title, e);
-        }
+            Color secondBandColor) {
+        batch.updateBanding(index, title, headerColor, firstBandColor, secondBandColor);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.vg.raiddataparser.sheet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row changes between the rows published by the previous refresh and the current rows of a sheet
+ * Rows are matched by key. Removed rows are deleted, added rows are inserted at their position, and the values of
+ * added and modified rows are written. Row indexes are 0-based and exclude the header row.
+ */
+public class SheetDelta {
+
+    private final List<RowRange> deletedRows = new ArrayList<>();
+    private final List<RowRange> insertedRows = new ArrayList<>();
+    private final List<RowRange> writtenRows = new ArrayList<>();
+
+    private SheetDelta() {}
+
+    /**
+     * @param previous rows published by the previous refresh
+     * @param current  current rows
+     * @return row changes, null if the rows can't be matched (duplicate keys or rows in another order)
+     */
+    public static SheetDelta compute(PublishedRows previous, PublishedRows current) {
+        Map<String, Integer> previousIndexes = new HashMap<>(previous.size() * 2);
+        for (int i = 0; i < previous.size(); i++) {
+            if (previousIndexes.put(previous.getKey(i), i) != null) {
+                return null;
+            }
+        }
+
+        // Index of each current row in the previous rows (-1: added), kept rows must be in the same order
+        int[] previousRowOf = new int[current.size()];
+        boolean[] kept = new boolean[previous.size()];
+        Map<String, Boolean> currentKeys = new HashMap<>(current.size() * 2);
+        int lastPreviousRow = -1;
+        for (int i = 0; i < current.size(); i++) {
+            if (currentKeys.put(current.getKey(i), Boolean.TRUE) != null) {
+                return null;
+            }
+
+            Integer previousRow = previousIndexes.get(current.getKey(i));
+            if (previousRow == null) {
+                previousRowOf[i] = -1;
+            } else {
+                if (previousRow < lastPreviousRow) {
+                    return null;
+                }
+                lastPreviousRow = previousRow;
+                previousRowOf[i] = previousRow;
+                kept[previousRow] = true;
+            }
+        }
+
+        SheetDelta delta = new SheetDelta();
+
+        // Removed rows, from the last one so that the indexes of the other deletions stay valid
+        for (int i = previous.size() - 1; i >= 0; i--) {
+            if (!kept[i]) {
+                int end = i + 1;
+                while (i > 0 && !kept[i - 1]) {
+                    i--;
+                }
+                delta.deletedRows.add(new RowRange(i, end));
+            }
+        }
+
+        // Added rows, from the first one: the rows before each insertion are already at their final index
+        for (int i = 0; i < current.size(); i++) {
+            if (previousRowOf[i] == -1) {
+                int start = i;
+                while (i + 1 < current.size() && previousRowOf[i + 1] == -1) {
+                    i++;
+                }
+                delta.insertedRows.add(new RowRange(start, i + 1));
+            }
+        }
+
+        // Values of added and modified rows, at their final index
+        for (int i = 0; i < current.size(); i++) {
+            if (isWritten(previous, current, previousRowOf, i)) {
+                int start = i;
+                while (i + 1 < current.size() && isWritten(previous, current, previousRowOf, i + 1)) {
+                    i++;
+                }
+                delta.writtenRows.add(new RowRange(start, i + 1));
+            }
+        }
+
+        return delta;
+    }
+
+    private static boolean isWritten(PublishedRows previous, PublishedRows current, int[] previousRowOf, int row) {
+        return previousRowOf[row] == -1 || previous.getHash(previousRowOf[row]) != current.getHash(row);
+    }
+
+    public boolean isEmpty() {
+        return deletedRows.isEmpty() && insertedRows.isEmpty() && writtenRows.isEmpty();
+    }
+
+    /**
+     * @return ranges of previous rows to delete, in deletion order (last rows first)
+     */
+    public List<RowRange> getDeletedRows() { return deletedRows; }
+
+    /**
+     * @return ranges of rows to insert (final indexes), in insertion order (first rows first)
+     */
+    public List<RowRange> getInsertedRows() { return insertedRows; }
+
+    /**
+     * @return ranges of rows whose values must be written (final indexes)
+     */
+    public List<RowRange> getWrittenRows() { return writtenRows; }
+
+    public int getWrittenRowCount() {
+        int count = 0;
+        for (RowRange range : writtenRows) {
+            count += range.getEnd() - range.getStart();
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "deleted=" + deletedRows + ", inserted=" + insertedRows + ", written=" + writtenRows;
+    }
+
+    /**
+     * Rows [start, end)
+     */
+    public static class RowRange {
+
+        private final int start;
+        private final int end;
+
+        RowRange(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getStart() { return start; }
+
+        public int getEnd() { return end; }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + ")";
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class SkillSheet extends RaidSheet {
@@ -28,7 +29,7 @@ public class SkillSheet extends RaidSheet {
     }
 
     @Override
-    public void addValueToList(Object o) {
+    public List<List<Object>> createRows(Object o) {
         Skill s = (Skill) o;
 
         // Add skill only if:
@@ -41,7 +42,7 @@ public class SkillSheet extends RaidSheet {
 
             LOGGER.info("Adding skill to list: " + s.getName());
 
-            values.add(Arrays.asList(
+            return Collections.singletonList(Arrays.asList(
                     s.getName(),
                     s.getDescription(),
                     s.getCooldown(),
@@ -49,6 +50,15 @@ public class SkillSheet extends RaidSheet {
                     s.getChampion().getName()
             ));
         }
+
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String getRowKey(Object o) {
+        Skill s = (Skill) o;
+        // A skill can belong to several champions
+        return s.getId() + "/" + s.getChampion().getId();
     }
 
-}
\ No newline at end of file
+}
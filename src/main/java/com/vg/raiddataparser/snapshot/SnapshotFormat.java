@@ -0,0 +1,69 @@
+package com.vg.raiddataparser.snapshot;
+
+/**
+ * Layout of the binary snapshot of champions and skills
+ *
+ * <pre>
+ * Header (HEADER_SIZE bytes): magic, version, champion count, skill count, string heap size
+ * Champion columns: CHAMPION_COLUMNS columns of (champion count) ints
+ * Skill columns: SKILL_COLUMNS columns of (skill count) ints
+ * String heap: for each string, length (int, bytes) then UTF-8 bytes
+ * </pre>
+ *
+ * Strings are stored in columns as their offset in the string heap (NULL_STRING for null), skills of a champion are
+ * consecutive (first skill index and skill count columns). All values are big-endian.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x52444453; // "RDDS"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 5 * Integer.BYTES;
+
+    static final int NULL_STRING = -1;
+
+    // Champion columns
+    static final int CHAMPION_ID = 0;
+    static final int CHAMPION_NAME = 1;
+    static final int CHAMPION_AFFINITY = 2;
+    static final int CHAMPION_ROLE = 3;
+    static final int CHAMPION_FACTION = 4;
+    static final int CHAMPION_RARITY = 5;
+    static final int CHAMPION_HEALTH = 6;
+    static final int CHAMPION_ATTACK = 7;
+    static final int CHAMPION_DEFENSE = 8;
+    static final int CHAMPION_SPEED = 9;
+    static final int CHAMPION_RESISTANCE = 10;
+    static final int CHAMPION_ACCURACY = 11;
+    static final int CHAMPION_CRITICAL_CHANCE = 12;
+    static final int CHAMPION_CRITICAL_DAMAGE = 13;
+    static final int CHAMPION_CRITICAL_HEAL = 14;
+    static final int CHAMPION_FIRST_SKILL = 15;
+    static final int CHAMPION_SKILL_COUNT = 16;
+    static final int CHAMPION_COLUMNS = 17;
+
+    // Skill columns
+    static final int SKILL_ID = 0;
+    static final int SKILL_REVISION = 1;
+    static final int SKILL_NAME = 2;
+    static final int SKILL_DESCRIPTION = 3;
+    static final int SKILL_COOLDOWN = 4;
+    static final int SKILL_MULTIPLIER_FORMULA = 5;
+    static final int SKILL_VISIBILITY = 6;
+    static final int SKILL_GROUP = 7;
+    static final int SKILL_CHAMPION = 8;
+    static final int SKILL_COLUMNS = 9;
+
+    private SnapshotFormat() {}
+
+    static int championColumnOffset(int column, int championCount) {
+        return HEADER_SIZE + column * championCount * Integer.BYTES;
+    }
+
+    static int skillColumnOffset(int column, int championCount, int skillCount) {
+        return championColumnOffset(CHAMPION_COLUMNS, championCount) + column * skillCount * Integer.BYTES;
+    }
+
+    static int stringHeapOffset(int championCount, int skillCount) {
+        return skillColumnOffset(SKILL_COLUMNS, championCount, skillCount);
+    }
+}
@@ -0,0 +1,213 @@
+package com.vg.raiddataparser.snapshot;
+
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.vg.raiddataparser.snapshot.SnapshotFormat.*;
+
+/**
+ * Read a binary snapshot (see SnapshotFormat) through a memory-mapped file
+ * Values are read from the mapping when accessed: column getters don't allocate, strings are decoded on access.
+ * Thread-safe (only absolute reads on the buffer).
+ */
+public class SnapshotReader {
+
+    private final ByteBuffer buffer;
+    private final int championCount;
+    private final int skillCount;
+    private final int stringHeapOffset;
+
+    private SnapshotReader(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a snapshot file");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported snapshot version " + buffer.getInt(Integer.BYTES));
+        }
+
+        championCount = buffer.getInt(2 * Integer.BYTES);
+        skillCount = buffer.getInt(3 * Integer.BYTES);
+        stringHeapOffset = SnapshotFormat.stringHeapOffset(championCount, skillCount);
+
+        if ((long) stringHeapOffset + buffer.getInt(4 * Integer.BYTES) != buffer.capacity()) {
+            throw new IOException("Truncated snapshot file");
+        }
+    }
+
+    /**
+     * Map the snapshot file
+     *
+     * @param file snapshot file
+     * @return SnapshotReader instance
+     * @throws IOException when the file can't be mapped or is not a snapshot
+     */
+    public static SnapshotReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new SnapshotReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int getChampionCount() { return championCount; }
+
+    public int getSkillCount() { return skillCount; }
+
+    public int getChampionId(int champion) { return championInt(CHAMPION_ID, champion); }
+
+    public String getChampionName(int champion) { return string(championInt(CHAMPION_NAME, champion)); }
+
+    public int getChampionAffinity(int champion) { return championInt(CHAMPION_AFFINITY, champion); }
+
+    public int getChampionRole(int champion) { return championInt(CHAMPION_ROLE, champion); }
+
+    public int getChampionFaction(int champion) { return championInt(CHAMPION_FACTION, champion); }
+
+    public int getChampionRarity(int champion) { return championInt(CHAMPION_RARITY, champion); }
+
+    public int getChampionHealth(int champion) { return championInt(CHAMPION_HEALTH, champion); }
+
+    public int getChampionAttack(int champion) { return championInt(CHAMPION_ATTACK, champion); }
+
+    public int getChampionDefense(int champion) { return championInt(CHAMPION_DEFENSE, champion); }
+
+    public int getChampionSpeed(int champion) { return championInt(CHAMPION_SPEED, champion); }
+
+    public int getChampionResistance(int champion) { return championInt(CHAMPION_RESISTANCE, champion); }
+
+    public int getChampionAccuracy(int champion) { return championInt(CHAMPION_ACCURACY, champion); }
+
+    public int getChampionCriticalChance(int champion) { return championInt(CHAMPION_CRITICAL_CHANCE, champion); }
+
+    public int getChampionCriticalDamage(int champion) { return championInt(CHAMPION_CRITICAL_DAMAGE, champion); }
+
+    public int getChampionCriticalHeal(int champion) { return championInt(CHAMPION_CRITICAL_HEAL, champion); }
+
+    /**
+     * @return index of the champion's first skill (skills of a champion are consecutive)
+     */
+    public int getChampionFirstSkill(int champion) { return championInt(CHAMPION_FIRST_SKILL, champion); }
+
+    public int getChampionSkillCount(int champion) { return championInt(CHAMPION_SKILL_COUNT, champion); }
+
+    public int getSkillId(int skill) { return skillInt(SKILL_ID, skill); }
+
+    public int getSkillRevision(int skill) { return skillInt(SKILL_REVISION, skill); }
+
+    public String getSkillName(int skill) { return string(skillInt(SKILL_NAME, skill)); }
+
+    public String getSkillDescription(int skill) { return string(skillInt(SKILL_DESCRIPTION, skill)); }
+
+    public int getSkillCooldown(int skill) { return skillInt(SKILL_COOLDOWN, skill); }
+
+    public String getSkillMultiplierFormula(int skill) { return string(skillInt(SKILL_MULTIPLIER_FORMULA, skill)); }
+
+    public int getSkillVisibility(int skill) { return skillInt(SKILL_VISIBILITY, skill); }
+
+    public int getSkillGroup(int skill) { return skillInt(SKILL_GROUP, skill); }
+
+    /**
+     * @return index of the skill's champion
+     */
+    public int getSkillChampion(int skill) { return skillInt(SKILL_CHAMPION, skill); }
+
+    /**
+     * Build all the champions with their skills
+     *
+     * @return champions, in snapshot order
+     */
+    public List<Champion> readChampions() {
+        List<Champion> champions = new ArrayList<>(championCount);
+        for (int i = 0; i < championCount; i++) {
+            champions.add(readChampion(i));
+        }
+        return champions;
+    }
+
+    /**
+     * Build a champion with its skills
+     *
+     * @param champion index of the champion
+     * @return Champion instance
+     */
+    public Champion readChampion(int champion) {
+        Champion c = new Champion.Builder()
+                .setId(getChampionId(champion))
+                .setName(getChampionName(champion))
+                .setAffinity(getChampionAffinity(champion))
+                .setRole(getChampionRole(champion))
+                .setFaction(getChampionFaction(champion))
+                .setRarity(getChampionRarity(champion))
+                .setHealth(getChampionHealth(champion))
+                .setAttack(getChampionAttack(champion))
+                .setDefense(getChampionDefense(champion))
+                .setSpeed(getChampionSpeed(champion))
+                .setResistance(getChampionResistance(champion))
+                .setAccuracy(getChampionAccuracy(champion))
+                .setCriticalChance(getChampionCriticalChance(champion))
+                .setCriticalDamage(getChampionCriticalDamage(champion))
+                .setCriticalHeal(getChampionCriticalHeal(champion))
+                .build();
+
+        int firstSkill = getChampionFirstSkill(champion);
+        int skillCount = getChampionSkillCount(champion);
+        List<Skill> skills = new ArrayList<>(skillCount);
+
+        for (int s = firstSkill; s < firstSkill + skillCount; s++) {
+            skills.add(new Skill.Builder()
+                    .setId(getSkillId(s))
+                    .setRevision(getSkillRevision(s))
+                    .setName(getSkillName(s))
+                    .setDescription(getSkillDescription(s))
+                    .setCooldown(getSkillCooldown(s))
+                    .setMultiplierFormula(getSkillMultiplierFormula(s))
+                    .setVisibility(getSkillVisibility(s))
+                    .setGroup(getSkillGroup(s))
+                    .setChampion(c)
+                    .build());
+        }
+
+        c.setSkills(skills);
+        return c;
+    }
+
+    private int championInt(int column, int champion) {
+        checkIndex(champion, championCount);
+        return buffer.getInt(championColumnOffset(column, championCount) + champion * Integer.BYTES);
+    }
+
+    private int skillInt(int column, int skill) {
+        checkIndex(skill, skillCount);
+        return buffer.getInt(skillColumnOffset(column, championCount, skillCount) + skill * Integer.BYTES);
+    }
+
+    private String string(int offset) {
+        if (offset == NULL_STRING) {
+            return null;
+        }
+
+        int position = stringHeapOffset + offset;
+        int length = buffer.getInt(position);
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + Integer.BYTES + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+}
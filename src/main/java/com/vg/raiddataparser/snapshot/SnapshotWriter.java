@@ -0,0 +1,154 @@
+package com.vg.raiddataparser.snapshot;
+
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.vg.raiddataparser.snapshot.SnapshotFormat.*;
+
+/**
+ * Write parsed champions and skills to a binary snapshot (see SnapshotFormat)
+ */
+public class SnapshotWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotWriter.class.getName());
+
+    private final ByteArrayOutputStream stringHeap = new ByteArrayOutputStream();
+    private final Map<String, Integer> stringOffsets = new HashMap<>();
+
+    /**
+     * Write the snapshot to a temporary file, then move it to the target file
+     *
+     * @param champions champions with their skills
+     * @param file      snapshot file
+     * @throws IOException when the file can't be written
+     */
+    public void write(List<Champion> champions, Path file) throws IOException {
+        int championCount = champions.size();
+        int skillCount = 0;
+        for (Champion champion : champions) {
+            skillCount += champion.getSkills().size();
+        }
+
+        ByteBuffer columns = ByteBuffer.allocate(stringHeapOffset(championCount, skillCount));
+        columns.putInt(MAGIC);
+        columns.putInt(VERSION);
+        columns.putInt(championCount);
+        columns.putInt(skillCount);
+
+        int skillIndex = 0;
+        for (int i = 0; i < championCount; i++) {
+            Champion c = champions.get(i);
+
+            putChampionInt(columns, CHAMPION_ID, i, championCount, c.getId());
+            putChampionInt(columns, CHAMPION_NAME, i, championCount, addString(c.getName()));
+            putChampionInt(columns, CHAMPION_AFFINITY, i, championCount, c.getAffinity());
+            putChampionInt(columns, CHAMPION_ROLE, i, championCount, c.getRole());
+            putChampionInt(columns, CHAMPION_FACTION, i, championCount, c.getFaction());
+            putChampionInt(columns, CHAMPION_RARITY, i, championCount, c.getRarity());
+            putChampionInt(columns, CHAMPION_HEALTH, i, championCount, c.getHealth());
+            putChampionInt(columns, CHAMPION_ATTACK, i, championCount, c.getAttack());
+            putChampionInt(columns, CHAMPION_DEFENSE, i, championCount, c.getDefense());
+            putChampionInt(columns, CHAMPION_SPEED, i, championCount, c.getSpeed());
+            putChampionInt(columns, CHAMPION_RESISTANCE, i, championCount, c.getResistance());
+            putChampionInt(columns, CHAMPION_ACCURACY, i, championCount, c.getAccuracy());
+            putChampionInt(columns, CHAMPION_CRITICAL_CHANCE, i, championCount, c.getCriticalChance());
+            putChampionInt(columns, CHAMPION_CRITICAL_DAMAGE, i, championCount, c.getCriticalDamage());
+            putChampionInt(columns, CHAMPION_CRITICAL_HEAL, i, championCount, c.getCriticalHeal());
+            putChampionInt(columns, CHAMPION_FIRST_SKILL, i, championCount, skillIndex);
+            putChampionInt(columns, CHAMPION_SKILL_COUNT, i, championCount, c.getSkills().size());
+
+            for (Skill s : c.getSkills()) {
+                putSkillInt(columns, SKILL_ID, skillIndex, championCount, skillCount, s.getId());
+                putSkillInt(columns, SKILL_REVISION, skillIndex, championCount, skillCount, s.getRevision());
+                putSkillInt(columns, SKILL_NAME, skillIndex, championCount, skillCount, addString(s.getName()));
+                putSkillInt(columns, SKILL_DESCRIPTION, skillIndex, championCount, skillCount,
+                        addString(s.getDescription()));
+                putSkillInt(columns, SKILL_COOLDOWN, skillIndex, championCount, skillCount, s.getCooldown());
+                putSkillInt(columns, SKILL_MULTIPLIER_FORMULA, skillIndex, championCount, skillCount,
+                        addString(s.getMultiplierFormula()));
+                putSkillInt(columns, SKILL_VISIBILITY, skillIndex, championCount, skillCount, s.getVisibility());
+                putSkillInt(columns, SKILL_GROUP, skillIndex, championCount, skillCount, s.getGroup());
+                putSkillInt(columns, SKILL_CHAMPION, skillIndex, championCount, skillCount, i);
+                skillIndex++;
+            }
+        }
+
+        // String heap size, known once all the strings are added
+        columns.putInt(4 * Integer.BYTES, stringHeap.size());
+        columns.position(0);
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                writeFully(channel, columns);
+                writeFully(channel, ByteBuffer.wrap(stringHeap.toByteArray()));
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        LOGGER.info("Snapshot written to {} ({} champions, {} skills)",
+                file.toAbsolutePath(), championCount, skillCount);
+    }
+
+    /**
+     * Add a string to the heap (identical strings are stored once)
+     *
+     * @return offset of the string in the heap
+     */
+    private int addString(String s) {
+        if (s == null) {
+            return NULL_STRING;
+        }
+
+        Integer offset = stringOffsets.get(s);
+        if (offset == null) {
+            offset = stringHeap.size();
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            stringHeap.write(bytes.length >>> 24);
+            stringHeap.write(bytes.length >>> 16);
+            stringHeap.write(bytes.length >>> 8);
+            stringHeap.write(bytes.length);
+            stringHeap.write(bytes, 0, bytes.length);
+            stringOffsets.put(s, offset);
+        }
+        return offset;
+    }
+
+    private static void putChampionInt(ByteBuffer buffer, int column, int index, int championCount, int value) {
+        buffer.putInt(championColumnOffset(column, championCount) + index * Integer.BYTES, value);
+    }
+
+    private static void putSkillInt(ByteBuffer buffer,
+            int column,
+            int index,
+            int championCount,
+            int skillCount,
+            int value) {
+        buffer.putInt(skillColumnOffset(column, championCount, skillCount) + index * Integer.BYTES, value);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
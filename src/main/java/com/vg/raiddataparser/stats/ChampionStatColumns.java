@@ -0,0 +1,75 @@
+package com.vg.raiddataparser.stats;
+
+import com.vg.raiddataparser.parser.data.HeroTypeData;
+import com.vg.raiddataparser.util.IntObjectMap;
+
+import java.util.List;
+
+/**
+ * Base scalable stats of all champions, one column (array) per stat
+ * Used by StatProgression to compute the stats of all champions at a progression point.
+ */
+public class ChampionStatColumns {
+
+    private final int[] ids;
+    private final int[] baseHealth;
+    private final int[] baseAttack;
+    private final int[] baseDefense;
+    private final IntObjectMap<Integer> indexById;
+
+    private ChampionStatColumns(int size) {
+        ids = new int[size];
+        baseHealth = new int[size];
+        baseAttack = new int[size];
+        baseDefense = new int[size];
+        indexById = new IntObjectMap<>(size);
+    }
+
+    /**
+     * @param heroes champions read from static data
+     * @return columns, in the champions order
+     */
+    public static ChampionStatColumns fromHeroTypes(List<HeroTypeData> heroes) {
+        ChampionStatColumns columns = new ChampionStatColumns(heroes.size());
+        for (int i = 0; i < heroes.size(); i++) {
+            HeroTypeData hero = heroes.get(i);
+            columns.ids[i] = hero.getId();
+            columns.baseHealth[i] = StatProgression.baseStatValue(hero.getHealth());
+            columns.baseAttack[i] = StatProgression.baseStatValue(hero.getAttack());
+            columns.baseDefense[i] = StatProgression.baseStatValue(hero.getDefence());
+            columns.indexById.putIfAbsent(hero.getId(), i);
+        }
+        return columns;
+    }
+
+    public int size() { return ids.length; }
+
+    public int getId(int index) { return ids[index]; }
+
+    /**
+     * @param id champion ID
+     * @return index of the champion in the columns, -1 if not found
+     */
+    public int indexOf(int id) {
+        Integer index = indexById.get(id);
+        return index == null ? -1 : index;
+    }
+
+    int[] getBaseHealth() { return baseHealth; }
+
+    int[] getBaseAttack() { return baseAttack; }
+
+    int[] getBaseDefense() { return baseDefense; }
+
+    public int getHealth(StatProgression progression, int index, int rank, int level) {
+        return progression.scale(baseHealth[index], rank, level) * StatProgression.HEALTH_FACTOR;
+    }
+
+    public int getAttack(StatProgression progression, int index, int rank, int level) {
+        return progression.scale(baseAttack[index], rank, level);
+    }
+
+    public int getDefense(StatProgression progression, int index, int rank, int level) {
+        return progression.scale(baseDefense[index], rank, level);
+    }
+}
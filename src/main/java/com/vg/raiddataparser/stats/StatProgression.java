@@ -0,0 +1,124 @@
+package com.vg.raiddataparser.stats;
+
+import java.util.Arrays;
+
+/**
+ * Scalable stats (health, attack, defense) at any rank and level
+ *
+ * <pre>
+ * Formula: BASE STAT * RANK_MULTIPLIER[rank] * LEVEL_MULTIPLIER(rank, level)
+ *  Rank | RANK_MULTIPLIER | LEVEL_MULTIPLIER at max level (rank * 10)
+ *   1   |  1              |  2
+ *   2   |  1.60000002     |  1.89999998
+ *   3   |  2.43199992     |  1.79999995
+ *   4   |  3.50207996     |  1.70000005
+ *   5   |  4.76282883     |  1.70000005
+ *   6   |  6.47744703     |  1.70000005
+ * </pre>
+ *
+ * The level multiplier grows linearly from 1 (level 1) to the max level multiplier of the rank. All rank/level growth
+ * factors are computed once in a flat table. Ascension is not modelled: static_data.json has no ascension bonus.
+ */
+public class StatProgression {
+
+    public static final int MAX_RANK = 6;
+    public static final int MAX_LEVEL = MAX_RANK * 10;
+
+    // Health is multiplied by 15 (in-game value)
+    public static final int HEALTH_FACTOR = 15;
+
+    private static final double[] RANK_MULTIPLIERS = {
+            1, 1.60000002, 2.43199992, 3.50207996, 4.76282883, 6.47744703
+    };
+    private static final double[] MAX_LEVEL_MULTIPLIERS = {
+            2, 1.89999998, 1.79999995, 1.70000005, 1.70000005, 1.70000005
+    };
+
+    // LEVEL_MULTIPLIER, by [rank - 1][level - 1]
+    private final double[] growthFactors = new double[MAX_RANK * MAX_LEVEL];
+
+    public StatProgression() {
+        Arrays.fill(growthFactors, Double.NaN);
+        for (int rank = 1; rank <= MAX_RANK; rank++) {
+            int maxLevel = getMaxLevel(rank);
+            double maxLevelMultiplier = MAX_LEVEL_MULTIPLIERS[rank - 1];
+
+            for (int level = 1; level <= maxLevel; level++) {
+                // Max level multiplier used as is, so the max level values are exactly BASE * RANK * MAX_LEVEL
+                growthFactors[index(rank, level)] = level == maxLevel
+                        ? maxLevelMultiplier
+                        : 1 + (maxLevelMultiplier - 1) * (level - 1) / (maxLevel - 1);
+            }
+        }
+    }
+
+    /**
+     * Base stat value from the static data value
+     *
+     * @param stat stat value in static_data.json
+     * @return base stat value
+     */
+    public static int baseStatValue(long stat) {
+        return (int) (stat / (Integer.MAX_VALUE * 2L - 1));
+    }
+
+    /**
+     * @param rank rank (stars) of the champion
+     * @return max level of the rank
+     */
+    public static int getMaxLevel(int rank) {
+        return rank * 10;
+    }
+
+    /**
+     * Scalable stat value (health: multiply by HEALTH_FACTOR)
+     *
+     * @param baseStat base stat value
+     * @param rank     1 to MAX_RANK
+     * @param level    1 to the max level of the rank
+     * @return stat value at the progression point
+     */
+    public int scale(int baseStat, int rank, int level) {
+        double growthFactor = growthFactor(rank, level);
+        return (int) Math.round(baseStat * RANK_MULTIPLIERS[rank - 1] * growthFactor);
+    }
+
+    /**
+     * Fill the health, attack and defense columns of all champions at a progression point
+     * One loop over the columns, without allocation.
+     *
+     * @param columns base stats of the champions
+     * @param rank    1 to MAX_RANK
+     * @param level   1 to the max level of the rank
+     * @param health  health of each champion (at least columns.size() values)
+     * @param attack  attack of each champion (at least columns.size() values)
+     * @param defense defense of each champion (at least columns.size() values)
+     */
+    public void fill(ChampionStatColumns columns, int rank, int level, int[] health, int[] attack, int[] defense) {
+        double growthFactor = growthFactor(rank, level);
+        double rankMultiplier = RANK_MULTIPLIERS[rank - 1];
+        int[] baseHealth = columns.getBaseHealth();
+        int[] baseAttack = columns.getBaseAttack();
+        int[] baseDefense = columns.getBaseDefense();
+
+        for (int i = 0, size = columns.size(); i < size; i++) {
+            health[i] = (int) Math.round(baseHealth[i] * rankMultiplier * growthFactor) * HEALTH_FACTOR;
+            attack[i] = (int) Math.round(baseAttack[i] * rankMultiplier * growthFactor);
+            defense[i] = (int) Math.round(baseDefense[i] * rankMultiplier * growthFactor);
+        }
+    }
+
+    private double growthFactor(int rank, int level) {
+        if (rank < 1 || rank > MAX_RANK) {
+            throw new IllegalArgumentException("Invalid rank: " + rank);
+        }
+        if (level < 1 || level > getMaxLevel(rank)) {
+            throw new IllegalArgumentException("Invalid level for rank " + rank + ": " + level);
+        }
+        return growthFactors[index(rank, level)];
+    }
+
+    private static int index(int rank, int level) {
+        return (rank - 1) * MAX_LEVEL + (level - 1);
+    }
+}
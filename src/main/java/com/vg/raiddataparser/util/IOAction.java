@@ -0,0 +1,12 @@
+package com.vg.raiddataparser.util;
+
+import java.io.IOException;
+
+/**
+ * Action returning a result that may throw an IOException (e.g. a Google API call)
+ */
+@FunctionalInterface
+public interface IOAction<T> {
+
+    T run() throws IOException;
+}
@@ -0,0 +1,77 @@
+package com.vg.raiddataparser.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter (thread-safe)
+ * Holds up to capacity tokens, refilled continuously at capacity tokens per period.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param capacity tokens per period (e.g. requests per minute), also the largest burst
+     * @param period   refill period
+     * @param unit     unit of the period
+     */
+    public TokenBucket(long capacity, long period, TimeUnit unit) {
+        if (capacity <= 0 || period <= 0) {
+            throw new IllegalArgumentException("Capacity and period must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = capacity / (double) unit.toNanos(period);
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Take a token, waiting until one is available
+     *
+     * @return time waited in nanoseconds
+     * @throws InterruptedException when interrupted while waiting
+     */
+    public long acquire() throws InterruptedException {
+        long waited = 0;
+        while (true) {
+            long wait;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return waited;
+                }
+                wait = (long) Math.ceil((1 - tokens) / tokensPerNano);
+            }
+            TimeUnit.NANOSECONDS.sleep(wait);
+            waited += wait;
+        }
+    }
+
+    /**
+     * Remove all the tokens (e.g. after the server rejected a request), the next tokens are available at the refill
+     * rate
+     */
+    public synchronized void drain() {
+        refill();
+        tokens = 0;
+    }
+
+    /**
+     * @return tokens currently available
+     */
+    public synchronized double available() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,68 @@
+package com.vg.raiddataparser;
+
+import com.vg.raiddataparser.model.champion.Champion;
+import com.vg.raiddataparser.parser.ChampionTransformer;
+import com.vg.raiddataparser.parser.data.StaticData;
+import com.vg.raiddataparser.parser.data.StaticDataReader;
+import com.vg.raiddataparser.sheet.ChampionRows;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * static_data.json fixture of the tests and benchmarks (src/test/resources, the benchmark profile compiles src/jmh/java
+ * with the test sources)
+ * Synthetic dataset with the structure of the real file: 600 champions (some filtered out), their skills with
+ * nested effects, and the localized texts.
+ */
+public final class TestData {
+
+    private static final String STATIC_DATA_RESOURCE = "/static_data.json";
+
+    private static byte[] staticData;
+
+    private TestData() {}
+
+    /**
+     * @return content of the fixture, read once from the test classpath
+     */
+    public static synchronized byte[] staticDataBytes() throws IOException {
+        if (staticData == null) {
+            try (InputStream in = TestData.class.getResourceAsStream(STATIC_DATA_RESOURCE)) {
+                if (in == null) {
+                    throw new IOException("Resource not found: " + STATIC_DATA_RESOURCE);
+                }
+                staticData = StreamUtils.copyToByteArray(in);
+            }
+        }
+        return staticData;
+    }
+
+    public static StaticData staticData() throws IOException {
+        return new StaticDataReader().read(new ByteArrayInputStream(staticDataBytes()));
+    }
+
+    /**
+     * @return champions with their skills, built without sheet rows
+     */
+    public static List<Champion> champions(StaticData staticData) {
+        List<Champion> champions = new ArrayList<>();
+        for (ChampionRows rows : new ChampionTransformer(staticData, TestData::withoutRows).transform()) {
+            champions.add(rows.getChampion());
+        }
+        return champions;
+    }
+
+    public static ChampionRows withoutRows(Champion champion) {
+        return new ChampionRows(champion,
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList());
+    }
+}
@@ -0,0 +1,67 @@
+package com.vg.raiddataparser.diff;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentHashesTest {
+
+    @Test
+    void sortedByIdFirstHashKept() {
+        ContentHashes hashes = new ContentHashes.Builder(1)
+                .add(30, 3L)
+                .add(10, 1L)
+                .add(20, 2L)
+                .add(10, 99L)
+                .build();
+
+        assertThat(hashes.size()).isEqualTo(3);
+        assertThat(hashes.getId(0)).isEqualTo(10);
+        assertThat(hashes.getHash(0)).isEqualTo(1L);
+        assertThat(hashes.getId(2)).isEqualTo(30);
+        assertThat(hashes.indexOf(20)).isEqualTo(1);
+        assertThat(hashes.indexOf(15)).isNegative();
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        ContentHashes.Builder builder = new ContentHashes.Builder();
+        for (int id = 1000; id > 0; id--) {
+            builder.add(id, id * 31L);
+        }
+        ContentHashes hashes = builder.build();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            hashes.write(out);
+        }
+        ContentHashes read = ContentHashes.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(read.size()).isEqualTo(1000);
+        for (int i = 0; i < read.size(); i++) {
+            assertThat(read.getId(i)).isEqualTo(hashes.getId(i));
+            assertThat(read.getHash(i)).isEqualTo(hashes.getHash(i));
+        }
+    }
+
+    @Test
+    void invalidSize() {
+        byte[] bytes = {-1, -1, -1, -1};
+
+        assertThatThrownBy(() -> ContentHashes.read(new DataInputStream(new ByteArrayInputStream(bytes))))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void empty() {
+        assertThat(ContentHashes.empty().size()).isZero();
+        assertThat(ContentHashes.empty().indexOf(1)).isNegative();
+    }
+}
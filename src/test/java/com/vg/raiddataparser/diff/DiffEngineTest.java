@@ -0,0 +1,120 @@
+package com.vg.raiddataparser.diff;
+
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiffEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private static Champion champion(int id, int attack, Skill... skills) {
+        Champion champion = new Champion.Builder()
+                .setId(id)
+                .setName("Champion " + id)
+                .setAttack(attack)
+                .build();
+        List<Skill> championSkills = new ArrayList<>();
+        for (Skill skill : skills) {
+            championSkills.add(new Skill(skill.getId(), skill.getRevision(), skill.getName(), skill.getDescription(),
+                    skill.getCooldown(), skill.getMultiplierFormula(), skill.getVisibility(), skill.getGroup(),
+                    champion));
+        }
+        champion.setSkills(championSkills);
+        return champion;
+    }
+
+    private static Skill skill(int id, int cooldown) {
+        return new Skill(id, 1, "Skill " + id, "Description " + id, cooldown, "1.0*ATK", 0, 0, null);
+    }
+
+    @Test
+    void firstRefreshAddsEverything() {
+        DiffEngine engine = new DiffEngine(directory.resolve("hashes.bin"));
+        DatasetDiff diff = engine.diff(Arrays.asList(champion(2, 100, skill(20, 3)), champion(1, 90, skill(10, 2))));
+
+        assertThat(diff.getChampions().getAdded()).containsOnlyKeys(1, 2);
+        assertThat(diff.getSkills().getAdded()).containsOnlyKeys(10, 20);
+        assertThat(diff.getChampions().getModified()).isEmpty();
+        assertThat(diff.getChampions().getRemoved()).isEmpty();
+    }
+
+    @Test
+    void addedModifiedAndRemoved() throws IOException {
+        DiffEngine engine = new DiffEngine(directory.resolve("hashes.bin"));
+        engine.save(engine.diff(Arrays.asList(
+                champion(1, 90, skill(10, 2)),
+                champion(2, 100, skill(20, 3), skill(21, 4)),
+                champion(3, 110))));
+
+        DatasetDiff diff = engine.diff(Arrays.asList(
+                champion(1, 90, skill(10, 2)),
+                champion(2, 101, skill(20, 5)),
+                champion(4, 120, skill(40, 1))));
+
+        assertThat(diff.getChampions().getAdded()).containsOnlyKeys(4);
+        assertThat(diff.getChampions().getModified()).containsOnlyKeys(2);
+        assertThat(diff.getChampions().getRemoved()).containsOnlyKeys(3);
+        assertThat(diff.getSkills().getAdded()).containsOnlyKeys(40);
+        assertThat(diff.getSkills().getModified()).containsOnlyKeys(20);
+        assertThat(diff.getSkills().getRemoved()).containsOnlyKeys(21);
+        assertThat(diff.getChampions().getModified().get(2).getAttack()).isEqualTo(101);
+    }
+
+    @Test
+    void unchangedDataset() throws IOException {
+        DiffEngine engine = new DiffEngine(directory.resolve("hashes.bin"));
+        List<Champion> champions = Collections.singletonList(champion(1, 90, skill(10, 2)));
+        engine.save(engine.diff(champions));
+
+        assertThat(engine.diff(Collections.singletonList(champion(1, 90, skill(10, 2)))).isEmpty()).isTrue();
+    }
+
+    @Test
+    void versionFollowsContentHashes() {
+        DiffEngine engine = new DiffEngine(directory.resolve("hashes.bin"));
+        DatasetDiff diff = engine.diff(Arrays.asList(champion(1, 90, skill(10, 2)), champion(2, 100)));
+
+        assertThat(diff.getChampionHashes().getHashById(2)).isEqualTo(ContentHasher.hash(champion(2, 100)));
+        assertThat(engine.diff(Arrays.asList(champion(2, 100), champion(1, 90, skill(10, 2)))).getVersion())
+                .isEqualTo(diff.getVersion());
+        assertThat(engine.diff(Arrays.asList(champion(1, 90, skill(10, 3)), champion(2, 100))).getVersion())
+                .isNotEqualTo(diff.getVersion());
+    }
+
+    @Test
+    void sharedSkillComparedOnce() {
+        DiffEngine engine = new DiffEngine(directory.resolve("hashes.bin"));
+        DatasetDiff diff = engine.diff(Arrays.asList(champion(1, 90, skill(10, 2)), champion(2, 90, skill(10, 2))));
+
+        assertThat(diff.getSkills().getAdded()).containsOnlyKeys(10);
+        assertThat(diff.getSkillHashes().size()).isEqualTo(1);
+    }
+
+    @Test
+    void unreadableFileIsReplaced() throws IOException {
+        Path hashesFile = directory.resolve("hashes.bin");
+        Files.write(hashesFile, new byte[]{1, 2, 3});
+        DiffEngine engine = new DiffEngine(hashesFile);
+        List<Champion> champions = Collections.singletonList(champion(1, 90, skill(10, 2)));
+
+        // Compared with an empty snapshot, then the file is overwritten
+        DatasetDiff diff = engine.diff(champions);
+        assertThat(diff.getChampions().getAdded()).containsOnlyKeys(1);
+        engine.save(diff);
+
+        assertThat(engine.diff(Collections.singletonList(champion(1, 90, skill(10, 2)))).isEmpty()).isTrue();
+    }
+}
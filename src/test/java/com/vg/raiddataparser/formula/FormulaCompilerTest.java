@@ -0,0 +1,133 @@
+package com.vg.raiddataparser.formula;
+
+import com.vg.raiddataparser.model.Skill;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class FormulaCompilerTest {
+
+    private final FormulaCompiler compiler = new FormulaCompiler();
+
+    private double evaluate(String formula, StatVector stats) throws FormulaException {
+        return compiler.compile(formula).evaluate(stats);
+    }
+
+    private double evaluate(String formula) throws FormulaException {
+        return evaluate(formula, compiler.newStatVector());
+    }
+
+    @Test
+    void operatorPrecedence() throws FormulaException {
+        assertThat(evaluate("1+2*3")).isEqualTo(7);
+        assertThat(evaluate("(1+2)*3")).isEqualTo(9);
+        assertThat(evaluate("10-4-3")).isEqualTo(3);
+        assertThat(evaluate("12/3/2")).isEqualTo(2);
+        assertThat(evaluate("-2*3+1")).isEqualTo(-5);
+        assertThat(evaluate("2*-3")).isEqualTo(-6);
+        assertThat(evaluate(" 1 + +2 ")).isEqualTo(3);
+    }
+
+    @Test
+    void functions() throws FormulaException {
+        assertThat(evaluate("min(2, 3) + max(2, 3)")).isEqualTo(5);
+        assertThat(evaluate("abs(-1.5)")).isEqualTo(1.5);
+        assertThat(evaluate("floor(1.7)+ceil(1.2)+round(2.5)")).isEqualTo(1 + 2 + 3);
+        assertThat(evaluate("MAX(1,2)")).isEqualTo(2);
+    }
+
+    @Test
+    void championStats() throws FormulaException {
+        StatVector stats = compiler.newStatVector().set(FormulaCompiler.ATK, 1000).set(FormulaCompiler.HP, 20000);
+
+        assertThat(evaluate("3.4*ATK", stats)).isEqualTo(3400, offset(1e-9));
+        assertThat(evaluate("0.2*HP+0.1*ATK", stats)).isEqualTo(4100, offset(1e-9));
+        assertThat(compiler.compile("0.2*HP+0.1*ATK*HP").getVariables())
+                .containsExactlyInAnyOrder(FormulaCompiler.HP, FormulaCompiler.ATK);
+    }
+
+    @Test
+    void statVectorReusedAfterClear() throws FormulaException {
+        CompiledFormula formula = compiler.compile("2*DEF");
+        StatVector stats = compiler.newStatVector().set(FormulaCompiler.DEF, 10);
+        assertThat(formula.evaluate(stats)).isEqualTo(20);
+
+        stats.clear().set(FormulaCompiler.DEF, 15);
+        assertThat(formula.evaluate(stats)).isEqualTo(30);
+    }
+
+    @Test
+    void unknownVariableIsCompileError() {
+        assertThatThrownBy(() -> compiler.compile("0.1*TRG_HP"))
+                .isInstanceOf(FormulaException.class)
+                .hasMessageContaining("Unknown variable TRG_HP")
+                .satisfies(e -> assertThat(((FormulaException) e).getPosition()).isEqualTo(4));
+    }
+
+    @Test
+    void declaredVariable() throws FormulaException {
+        compiler.declareVariable("TRG_HP");
+        StatVector stats = compiler.newStatVector().set("TRG_HP", 50000);
+
+        assertThat(evaluate("0.1*TRG_HP", stats)).isEqualTo(5000);
+        assertThat(compiler.declareVariable("TRG_HP")).isEqualTo(compiler.getSlot("TRG_HP"));
+    }
+
+    @Test
+    void variableNotSetIsNotZero() throws FormulaException {
+        CompiledFormula formula = compiler.compile("0.2*HP+ATK");
+        StatVector stats = compiler.newStatVector().set(FormulaCompiler.ATK, 1000);
+
+        assertThat(stats.isSet(FormulaCompiler.HP)).isFalse();
+        assertThatThrownBy(() -> formula.evaluate(stats))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Variable HP not set");
+
+        stats.set(FormulaCompiler.HP, 0);
+        assertThat(formula.evaluate(stats)).isEqualTo(1000);
+    }
+
+    @Test
+    void constantFolding() throws FormulaException {
+        // Constant formula: no variables, evaluated without any stat
+        CompiledFormula formula = compiler.compile("2*(3+4)/7");
+        assertThat(formula.getVariables()).isEmpty();
+        assertThat(formula.evaluate(compiler.newStatVector())).isEqualTo(2);
+    }
+
+    @Test
+    void invalidFormulas() {
+        for (String formula : Arrays.asList("", "1+", "(1+2", "1+2)", "2**3", "foo(1)", "min(1)", "1.2.3", "#")) {
+            assertThatThrownBy(() -> compiler.compile(formula))
+                    .as(formula)
+                    .isInstanceOf(FormulaException.class);
+        }
+    }
+
+    @Test
+    void statVectorOfAnotherCompiler() throws FormulaException {
+        CompiledFormula formula = compiler.compile("1");
+        assertThatThrownBy(() -> formula.evaluate(new FormulaCompiler().newStatVector()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void cacheEvaluatesInvalidFormulaAsNaN() {
+        FormulaCache cache = new FormulaCache(compiler);
+        Skill valid = new Skill(1, 0, "valid", null, 0, "2*ATK", 0, 0, null);
+        Skill unknownVariable = new Skill(2, 0, "unknown", null, 0, "0.1*TRG_HP", 0, 0, null);
+        Skill withoutFormula = new Skill(3, 0, "none", null, 0, null, 0, 0, null);
+        StatVector stats = compiler.newStatVector().set(FormulaCompiler.ATK, 100);
+
+        assertThat(cache.evaluate(valid, stats)).isEqualTo(200);
+        assertThat(cache.get(valid)).isSameAs(cache.get(valid));
+        assertThat(cache.get(unknownVariable).isValid()).isFalse();
+        assertThat(cache.evaluate(unknownVariable, stats)).isNaN();
+        assertThat(cache.get(withoutFormula)).isNull();
+        assertThat(cache.evaluate(withoutFormula, stats)).isNaN();
+    }
+}
@@ -0,0 +1,68 @@
+package com.vg.raiddataparser.googleservices;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GoogleRequestSchedulerTest {
+
+    private static GoogleJsonResponseException jsonError(int statusCode, String reason) {
+        GoogleJsonError.ErrorInfo errorInfo = new GoogleJsonError.ErrorInfo();
+        errorInfo.setReason(reason);
+        GoogleJsonError details = new GoogleJsonError();
+        details.setCode(statusCode);
+        details.setErrors(Collections.singletonList(errorInfo));
+        return new GoogleJsonResponseException(
+                new HttpResponseException.Builder(statusCode, null, new HttpHeaders()), details);
+    }
+
+    @Test
+    void tooManyRequestsIsRateLimited() {
+        assertThat(GoogleRequestScheduler.isRateLimited(
+                new HttpResponseException.Builder(429, null, new HttpHeaders()).build())).isTrue();
+    }
+
+    @Test
+    void driveRateLimitReasonsAreRateLimited() {
+        assertThat(GoogleRequestScheduler.isRateLimited(jsonError(403, "userRateLimitExceeded"))).isTrue();
+        assertThat(GoogleRequestScheduler.isRateLimited(jsonError(403, "rateLimitExceeded"))).isTrue();
+    }
+
+    @Test
+    void otherErrorsAreNotRateLimited() {
+        assertThat(GoogleRequestScheduler.isRateLimited(jsonError(403, "insufficientPermissions"))).isFalse();
+        assertThat(GoogleRequestScheduler.isRateLimited(jsonError(403, "dailyLimitExceeded"))).isFalse();
+        assertThat(GoogleRequestScheduler.isRateLimited(jsonError(400, "rateLimitExceeded"))).isFalse();
+        assertThat(GoogleRequestScheduler.isRateLimited(
+                new HttpResponseException.Builder(403, null, new HttpHeaders()).build())).isFalse();
+        assertThat(GoogleRequestScheduler.isRateLimited(new SocketTimeoutException())).isFalse();
+    }
+
+    @Test
+    void clientErrorIsNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+        assertThatThrownBy(() -> GoogleRequestScheduler.getInstance().execute(GoogleRequestScheduler.Quota.DRIVE, true,
+                () -> {
+                    attempts.incrementAndGet();
+                    throw jsonError(404, "notFound");
+                }))
+                .isInstanceOf(GoogleJsonResponseException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void successfulRequest() throws IOException {
+        assertThat(GoogleRequestScheduler.getInstance().execute(GoogleRequestScheduler.Quota.DRIVE, false,
+                () -> "response")).isEqualTo("response");
+    }
+}
@@ -0,0 +1,186 @@
+package com.vg.raiddataparser.googleservices.sheets;
+
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.services.sheets.v4.model.BatchUpdateSpreadsheetResponse;
+import com.google.api.services.sheets.v4.model.BatchUpdateValuesResponse;
+import com.google.api.services.sheets.v4.model.Color;
+import com.google.api.services.sheets.v4.model.Request;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+import com.google.api.services.sheets.v4.model.ValueRange;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SheetsBatchTest {
+
+    private static final String SPREADSHEET_ID = "spreadsheet";
+    private static final Color COLOR = new Color().setRed(1f).setGreen(1f).setBlue(1f);
+
+    /**
+     * Records the requests instead of sending them
+     */
+    private static class RecordingSheetsService extends GoogleSheetsService {
+
+        private final List<String> calls = new ArrayList<>();
+        private final List<List<Request>> batchUpdates = new ArrayList<>();
+        private SpreadsheetMetadata metadata;
+        private int loads;
+        private int rejectedBatchUpdates;
+
+        RecordingSheetsService(SpreadsheetMetadata metadata) {
+            super(false);
+            this.metadata = metadata;
+        }
+
+        @Override
+        public SpreadsheetMetadata getMetadata(String spreadsheetId) {
+            if (metadata == null) {
+                loads++;
+                metadata = SpreadsheetMetadata.fromSpreadsheet(spreadsheet(20), SpreadsheetMetadata.UNKNOWN);
+            }
+            return metadata;
+        }
+
+        @Override
+        public void invalidateMetadata(String spreadsheetId, SpreadsheetMetadata metadata) {
+            if (this.metadata == metadata) {
+                this.metadata = null;
+            }
+        }
+
+        @Override
+        public int[] getNumberOfRows(String spreadsheetId, List<String> titles) {
+            calls.add("getNumberOfRows " + titles);
+            int[] numberOfRows = new int[titles.size()];
+            Arrays.fill(numberOfRows, 10);
+            return numberOfRows;
+        }
+
+        @Override
+        public BatchUpdateValuesResponse batchUpdateValues(String spreadsheetId, List<ValueRange> data) {
+            List<String> ranges = new ArrayList<>();
+            for (ValueRange valueRange : data) {
+                ranges.add(valueRange.getRange());
+            }
+            calls.add("batchUpdateValues " + ranges);
+            return new BatchUpdateValuesResponse();
+        }
+
+        @Override
+        public BatchUpdateSpreadsheetResponse batchUpdate(String spreadsheetId,
+                List<Request> requests) throws IOException {
+            if (rejectedBatchUpdates > 0) {
+                rejectedBatchUpdates--;
+                throw new HttpResponseException.Builder(400, "Bad Request", new HttpHeaders()).build();
+            }
+            List<String> kinds = new ArrayList<>();
+            for (Request request : requests) {
+                kinds.add(request.keySet().iterator().next());
+            }
+            calls.add("batchUpdate " + kinds);
+            batchUpdates.add(requests);
+            return new BatchUpdateSpreadsheetResponse();
+        }
+    }
+
+    private static Spreadsheet spreadsheet(int firstSheetId) {
+        List<Sheet> sheets = new ArrayList<>();
+        String[] titles = {"Multipliers", "Champions", "Skills"};
+        for (int i = 0; i < titles.length; i++) {
+            sheets.add(new Sheet().setProperties(new SheetProperties()
+                    .setSheetId(firstSheetId + i)
+                    .setTitle(titles[i])
+                    .setIndex(i)));
+        }
+        return new Spreadsheet().setSheets(sheets);
+    }
+
+    private static SpreadsheetMetadata persisted(SpreadsheetMetadata metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            metadata.write(out, true);
+        }
+        return SpreadsheetMetadata.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    private static List<List<Object>> rows(int count) {
+        return Collections.nCopies(count, Collections.singletonList("value"));
+    }
+
+    @Test
+    void rowChangesThenValuesThenFormatting() throws IOException {
+        RecordingSheetsService service = new RecordingSheetsService(
+                SpreadsheetMetadata.fromSpreadsheet(spreadsheet(10), 100));
+
+        service.newBatch(SPREADSHEET_ID)
+                .renameSpreadsheet("Title")
+                .addBanding(0, "Multipliers", COLOR, COLOR, COLOR)
+                .updateValues("Skills!A2:Z", rows(2))
+                .deleteRows(2, 5, 7)
+                .insertRows(2, 1, 2)
+                .formatHeaderRowBoldText(0)
+                .execute();
+
+        assertThat(service.calls).containsExactly(
+                "batchUpdate [deleteDimension, insertDimension]",
+                "batchUpdateValues [Skills!A2:Z]",
+                "getNumberOfRows [Multipliers]",
+                "batchUpdate [updateSpreadsheetProperties, addBanding, repeatCell]");
+        assertThat(service.batchUpdates.get(0).get(0).getDeleteDimension().getRange().getSheetId()).isEqualTo(12);
+        // 2 rows deleted, 1 inserted
+        assertThat(service.getMetadata(SPREADSHEET_ID).getNumberOfRows("Skills")).isEqualTo(99);
+    }
+
+    @Test
+    void emptyBatchSendsNothing() throws IOException {
+        RecordingSheetsService service = new RecordingSheetsService(null);
+
+        SheetsBatch batch = service.newBatch(SPREADSHEET_ID);
+        batch.execute();
+
+        assertThat(batch.isEmpty()).isTrue();
+        assertThat(service.calls).isEmpty();
+        assertThat(service.loads).isZero();
+    }
+
+    @Test
+    void stalePersistedMetadataIsReloadedOnce() throws IOException {
+        RecordingSheetsService service = new RecordingSheetsService(
+                persisted(SpreadsheetMetadata.fromSpreadsheet(spreadsheet(10), 100)));
+        service.rejectedBatchUpdates = 1;
+
+        service.newBatch(SPREADSHEET_ID)
+                .deleteRows(1, 1, 2)
+                .execute();
+
+        assertThat(service.loads).isEqualTo(1);
+        assertThat(service.calls).containsExactly("batchUpdate [deleteDimension]");
+        // Sheet ID of the reloaded metadata
+        assertThat(service.batchUpdates.get(0).get(0).getDeleteDimension().getRange().getSheetId()).isEqualTo(21);
+    }
+
+    @Test
+    void loadedMetadataIsNotReloaded() {
+        RecordingSheetsService service = new RecordingSheetsService(
+                SpreadsheetMetadata.fromSpreadsheet(spreadsheet(10), 100));
+        service.rejectedBatchUpdates = 1;
+
+        assertThatThrownBy(() -> service.newBatch(SPREADSHEET_ID).deleteRows(1, 1, 2).execute())
+                .isInstanceOf(HttpResponseException.class);
+        assertThat(service.loads).isZero();
+    }
+}
@@ -0,0 +1,65 @@
+package com.vg.raiddataparser.googleservices.sheets;
+
+import com.google.api.services.sheets.v4.model.BandedRange;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpreadsheetMetadataTest {
+
+    private static Spreadsheet spreadsheet() {
+        return new Spreadsheet().setSheets(Arrays.asList(
+                sheet(11, "Multipliers", 0).setBandedRanges(Collections.singletonList(
+                        new BandedRange().setBandedRangeId(101))),
+                sheet(12, "Champions", 1),
+                sheet(13, "Skills", 2)));
+    }
+
+    private static Sheet sheet(int sheetId, String title, int index) {
+        return new Sheet().setProperties(new SheetProperties().setSheetId(sheetId).setTitle(title).setIndex(index));
+    }
+
+    private static SpreadsheetMetadata writeAndRead(SpreadsheetMetadata metadata) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            metadata.write(out, true);
+        }
+        return SpreadsheetMetadata.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    @Test
+    void persistedMetadataKeepsIdsAndRowCounts() throws IOException {
+        SpreadsheetMetadata loaded = SpreadsheetMetadata.fromSpreadsheet(spreadsheet(), 1);
+        loaded.setNumberOfRows("Skills", 500);
+
+        SpreadsheetMetadata persisted = writeAndRead(loaded);
+
+        assertThat(loaded.isPersisted()).isFalse();
+        assertThat(persisted.isPersisted()).isTrue();
+        assertThat(persisted.getSheetId(2)).isEqualTo(13);
+        assertThat(persisted.getBandedRangeId(0, 0)).isEqualTo(101);
+        assertThat(persisted.getNumberOfRows("Skills")).isEqualTo(500);
+        assertThat(persisted.getNumberOfRows("Champions")).isEqualTo(1);
+    }
+
+    @Test
+    void hasSheetsChecksTitlesInIndexOrder() {
+        SpreadsheetMetadata metadata = SpreadsheetMetadata.fromSpreadsheet(spreadsheet(), SpreadsheetMetadata.UNKNOWN);
+
+        assertThat(metadata.hasSheets(Arrays.asList("Multipliers", "Champions", "Skills"))).isTrue();
+        assertThat(metadata.hasSheets(Arrays.asList("Champions", "Multipliers", "Skills"))).isFalse();
+        assertThat(metadata.hasSheets(Arrays.asList("Multipliers", "Champions"))).isFalse();
+        assertThat(metadata.hasSheets(Arrays.asList("Multipliers", "Champions", "Skills (old)"))).isFalse();
+    }
+}
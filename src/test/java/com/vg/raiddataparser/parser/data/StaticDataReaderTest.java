@@ -0,0 +1,39 @@
+package com.vg.raiddataparser.parser.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vg.raiddataparser.TestData;
+import com.vg.raiddataparser.diff.ContentHasher;
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StaticDataReaderTest {
+
+    private static List<Long> hashes(List<Champion> champions) {
+        List<Long> hashes = new ArrayList<>();
+        for (Champion champion : champions) {
+            hashes.add(ContentHasher.hash(champion));
+            for (Skill skill : champion.getSkills()) {
+                hashes.add(ContentHasher.hash(skill));
+            }
+        }
+        return hashes;
+    }
+
+    @Test
+    void sameChampionsAsTree() throws IOException {
+        StaticData streamed = TestData.staticData();
+        StaticData tree = StaticData.fromNode(new ObjectMapper().readTree(TestData.staticDataBytes()));
+
+        assertThat(streamed.getHeroTypes()).hasSameSizeAs(tree.getHeroTypes());
+        List<Champion> champions = TestData.champions(streamed);
+        assertThat(champions).isNotEmpty();
+        assertThat(hashes(champions)).isEqualTo(hashes(TestData.champions(tree)));
+    }
+}
@@ -0,0 +1,145 @@
+package com.vg.raiddataparser.sheet;
+
+import com.vg.raiddataparser.model.champion.Champion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SheetDeltaTest {
+
+    /**
+     * @param keysAndValues key of each row, optionally followed by "=value" (value: key)
+     */
+    private static PublishedRows rows(String... keysAndValues) {
+        PublishedRows.Builder builder = new PublishedRows.Builder();
+        for (String keyAndValue : keysAndValues) {
+            String[] parts = keyAndValue.split("=", 2);
+            builder.add(parts[0], Collections.singletonList(parts.length > 1 ? parts[1] : parts[0]));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param names name of each champion (ID: position + 1), names containing "hero" are filtered out
+     */
+    private static PublishedRows multiplierRows(String... names) {
+        RaidSheet sheet = new MultiplierSheet();
+        for (int i = 0; i < names.length; i++) {
+            sheet.addValueToList(new Champion.Builder()
+                    .setId(i + 1)
+                    .setName(names[i])
+                    .setSkills(Collections.emptyList())
+                    .build());
+        }
+        return sheet.getPublishedRows();
+    }
+
+    private static List<String> ranges(List<SheetDelta.RowRange> ranges) {
+        List<String> strings = new ArrayList<>();
+        for (SheetDelta.RowRange range : ranges) {
+            strings.add(range.toString());
+        }
+        return strings;
+    }
+
+    @Test
+    void unchangedRows() {
+        SheetDelta delta = SheetDelta.compute(rows("a", "b", "c"), rows("a", "b", "c"));
+
+        assertThat(delta.isEmpty()).isTrue();
+        assertThat(delta.getWrittenRowCount()).isZero();
+    }
+
+    @Test
+    void deletionsFromTheLastRowThenInsertionsFromTheFirstRow() {
+        SheetDelta delta = SheetDelta.compute(
+                rows("a", "b", "c", "d", "e", "f"),
+                rows("x", "a", "c", "y", "z", "f", "w"));
+
+        // b (1) and d, e (3, 4) removed, last range first so that the first indexes stay valid
+        assertThat(ranges(delta.getDeletedRows())).containsExactly("[3, 5)", "[1, 2)");
+        // After deletions: a c f, insertions at the final indexes
+        assertThat(ranges(delta.getInsertedRows())).containsExactly("[0, 1)", "[3, 5)", "[6, 7)");
+        assertThat(ranges(delta.getWrittenRows())).containsExactly("[0, 1)", "[3, 5)", "[6, 7)");
+    }
+
+    @Test
+    void modifiedRowsAreWrittenInPlace() {
+        SheetDelta delta = SheetDelta.compute(rows("a", "b", "c", "d"), rows("a", "b=changed", "c=changed", "d"));
+
+        assertThat(delta.getDeletedRows()).isEmpty();
+        assertThat(delta.getInsertedRows()).isEmpty();
+        assertThat(ranges(delta.getWrittenRows())).containsExactly("[1, 3)");
+        assertThat(delta.getWrittenRowCount()).isEqualTo(2);
+    }
+
+    @Test
+    void allRowsRemoved() {
+        SheetDelta delta = SheetDelta.compute(rows("a", "b"), rows());
+
+        assertThat(ranges(delta.getDeletedRows())).containsExactly("[0, 2)");
+        assertThat(delta.getInsertedRows()).isEmpty();
+    }
+
+    @Test
+    void duplicateKeysCantBeMatched() {
+        assertThat(SheetDelta.compute(rows("a", "a", "b"), rows("a", "b"))).isNull();
+        assertThat(SheetDelta.compute(rows("a", "b"), rows("a", "b", "b"))).isNull();
+    }
+
+    @Test
+    void reorderedRowsCantBeMatched() {
+        assertThat(SheetDelta.compute(rows("a", "b", "c"), rows("a", "c", "b"))).isNull();
+    }
+
+    @Test
+    void filteredChampionHasNoMultiplierRow() {
+        PublishedRows rows = multiplierRows("Arbiter", "Hero 1", "Coldheart");
+
+        assertThat(rows.size()).isEqualTo(2);
+        assertThat(rows.getKey(0)).isEqualTo("1");
+        assertThat(rows.getKey(1)).isEqualTo("3");
+    }
+
+    @Test
+    void championFilteredOutIsDeletedFromAnExistingSheet() {
+        SheetDelta delta = SheetDelta.compute(
+                multiplierRows("Arbiter", "Bulwark", "Coldheart"),
+                multiplierRows("Arbiter", "Hero Bulwark", "Coldheart"));
+
+        assertThat(ranges(delta.getDeletedRows())).containsExactly("[1, 2)");
+        assertThat(delta.getInsertedRows()).isEmpty();
+        assertThat(delta.getWrittenRows()).isEmpty();
+    }
+
+    @Test
+    void championNoLongerFilteredIsInsertedAtItsRow() {
+        SheetDelta delta = SheetDelta.compute(
+                multiplierRows("Arbiter", "Hero Bulwark", "Coldheart"),
+                multiplierRows("Arbiter", "Bulwark", "Coldheart"));
+
+        assertThat(delta.getDeletedRows()).isEmpty();
+        assertThat(ranges(delta.getInsertedRows())).containsExactly("[1, 2)");
+        assertThat(ranges(delta.getWrittenRows())).containsExactly("[1, 2)");
+    }
+
+    @Test
+    void emptyRowsOfFilteredChampionsPublishedBeforeAreDeleted() {
+        // Previous versions published an empty row for a filtered champion
+        PublishedRows previous = new PublishedRows.Builder()
+                .add("1", Collections.singletonList("Arbiter"))
+                .add("2", null)
+                .add("3", Collections.singletonList("Coldheart"))
+                .build();
+
+        SheetDelta delta = SheetDelta.compute(previous, multiplierRows("Arbiter", "Hero 1", "Coldheart"));
+
+        assertThat(ranges(delta.getDeletedRows())).containsExactly("[1, 2)");
+        assertThat(delta.getInsertedRows()).isEmpty();
+        assertThat(delta.getWrittenRows()).isEmpty();
+    }
+}
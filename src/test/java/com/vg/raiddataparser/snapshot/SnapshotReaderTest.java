@@ -0,0 +1,80 @@
+package com.vg.raiddataparser.snapshot;
+
+import com.vg.raiddataparser.TestData;
+import com.vg.raiddataparser.diff.ContentHasher;
+import com.vg.raiddataparser.model.Skill;
+import com.vg.raiddataparser.model.champion.Champion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnapshotReaderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTrip() throws IOException {
+        List<Champion> champions = TestData.champions(TestData.staticData());
+        Path file = directory.resolve("snapshot.bin");
+        new SnapshotWriter().write(champions, file);
+
+        SnapshotReader reader = SnapshotReader.open(file);
+        List<Champion> read = reader.readChampions();
+
+        int skillCount = 0;
+        for (Champion champion : champions) {
+            skillCount += champion.getSkills().size();
+        }
+        assertThat(reader.getChampionCount()).isEqualTo(champions.size());
+        assertThat(reader.getSkillCount()).isEqualTo(skillCount);
+        assertThat(read).hasSameSizeAs(champions);
+
+        for (int i = 0; i < champions.size(); i++) {
+            Champion expected = champions.get(i);
+            Champion actual = read.get(i);
+            assertThat(ContentHasher.hash(actual)).as(expected.getName()).isEqualTo(ContentHasher.hash(expected));
+            assertThat(actual.getSkills()).hasSameSizeAs(expected.getSkills());
+            for (int s = 0; s < expected.getSkills().size(); s++) {
+                Skill expectedSkill = expected.getSkills().get(s);
+                Skill actualSkill = actual.getSkills().get(s);
+                assertThat(ContentHasher.hash(actualSkill)).isEqualTo(ContentHasher.hash(expectedSkill));
+                assertThat(actualSkill.getMultiplierFormula()).isEqualTo(expectedSkill.getMultiplierFormula());
+                assertThat(actualSkill.getChampion()).isSameAs(actual);
+            }
+        }
+    }
+
+    @Test
+    void nullStrings() throws IOException {
+        Champion champion = new Champion.Builder().setId(1).setName(null).setAttack(10).build();
+        champion.setSkills(Collections.singletonList(
+                new Skill(2, 1, "Skill", null, 3, null, 0, 0, champion)));
+        Path file = directory.resolve("snapshot.bin");
+        new SnapshotWriter().write(Collections.singletonList(champion), file);
+
+        SnapshotReader reader = SnapshotReader.open(file);
+
+        assertThat(reader.getChampionName(0)).isNull();
+        assertThat(reader.getChampionAttack(0)).isEqualTo(10);
+        assertThat(reader.getSkillName(0)).isEqualTo("Skill");
+        assertThat(reader.getSkillDescription(0)).isNull();
+        assertThat(reader.getSkillMultiplierFormula(0)).isNull();
+        assertThat(reader.getSkillChampion(0)).isZero();
+    }
+
+    @Test
+    void notASnapshot() throws IOException {
+        Path file = Files.write(directory.resolve("other.bin"), new byte[64]);
+
+        assertThatThrownBy(() -> SnapshotReader.open(file)).isInstanceOf(IOException.class);
+    }
+}
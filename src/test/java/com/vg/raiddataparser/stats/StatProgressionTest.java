@@ -0,0 +1,113 @@
+package com.vg.raiddataparser.stats;
+
+import com.vg.raiddataparser.TestData;
+import com.vg.raiddataparser.model.champion.Champion;
+import com.vg.raiddataparser.parser.data.HeroTypeData;
+import com.vg.raiddataparser.parser.data.StaticData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StatProgressionTest {
+
+    private final StatProgression progression = new StatProgression();
+
+    // Scalable stat before StatProgression (6 stars, max level)
+    private static int maxRankValue(long stat) {
+        return (int) Math.round(StatProgression.baseStatValue(stat) * 6.47744703 * 1.70000005);
+    }
+
+    @Test
+    void fillAtMaxRankMatchesPreviousFormula() throws IOException {
+        List<HeroTypeData> heroes = TestData.staticData().getHeroTypes();
+        ChampionStatColumns columns = ChampionStatColumns.fromHeroTypes(heroes);
+        int[] health = new int[columns.size()];
+        int[] attack = new int[columns.size()];
+        int[] defense = new int[columns.size()];
+
+        progression.fill(columns, StatProgression.MAX_RANK, StatProgression.MAX_LEVEL, health, attack, defense);
+
+        assertThat(columns.size()).isEqualTo(heroes.size());
+        for (int i = 0; i < heroes.size(); i++) {
+            HeroTypeData hero = heroes.get(i);
+            assertThat(columns.getId(i)).isEqualTo(hero.getId());
+            assertThat(health[i]).isEqualTo(maxRankValue(hero.getHealth()) * StatProgression.HEALTH_FACTOR);
+            assertThat(attack[i]).isEqualTo(maxRankValue(hero.getAttack()));
+            assertThat(defense[i]).isEqualTo(maxRankValue(hero.getDefence()));
+        }
+    }
+
+    @Test
+    void transformedChampionsHaveMaxRankStats() throws IOException {
+        StaticData staticData = TestData.staticData();
+        Map<Integer, HeroTypeData> heroes = new HashMap<>();
+        for (HeroTypeData hero : staticData.getHeroTypes()) {
+            heroes.put(hero.getId(), hero);
+        }
+
+        List<Champion> champions = TestData.champions(staticData);
+        assertThat(champions).isNotEmpty();
+        for (Champion champion : champions) {
+            HeroTypeData hero = heroes.get(champion.getId());
+            assertThat(champion.getHealth()).isEqualTo(maxRankValue(hero.getHealth()) * StatProgression.HEALTH_FACTOR);
+            assertThat(champion.getAttack()).isEqualTo(maxRankValue(hero.getAttack()));
+            assertThat(champion.getDefense()).isEqualTo(maxRankValue(hero.getDefence()));
+        }
+    }
+
+    @Test
+    void scaleMatchesFill() throws IOException {
+        ChampionStatColumns columns = ChampionStatColumns.fromHeroTypes(TestData.staticData().getHeroTypes());
+        int[] health = new int[columns.size()];
+        int[] attack = new int[columns.size()];
+        int[] defense = new int[columns.size()];
+
+        for (int rank = 1; rank <= StatProgression.MAX_RANK; rank++) {
+            for (int level = 1; level <= StatProgression.getMaxLevel(rank); level += 7) {
+                progression.fill(columns, rank, level, health, attack, defense);
+                for (int i = 0; i < columns.size(); i++) {
+                    assertThat(columns.getHealth(progression, i, rank, level)).isEqualTo(health[i]);
+                    assertThat(columns.getAttack(progression, i, rank, level)).isEqualTo(attack[i]);
+                    assertThat(columns.getDefense(progression, i, rank, level)).isEqualTo(defense[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void levelMultiplier() {
+        // Level 1: rank multiplier only; max level: rank and max level multipliers
+        assertThat(progression.scale(1000, 1, 1)).isEqualTo(1000);
+        assertThat(progression.scale(1000, 1, 10)).isEqualTo(2000);
+        assertThat(progression.scale(1000, 2, 1)).isEqualTo(1600);
+        assertThat(progression.scale(1000, 6, 1)).isEqualTo(6477);
+        assertThat(progression.scale(1000, 6, 60)).isEqualTo(11012);
+
+        // Linear between level 1 and the max level
+        assertThat(progression.scale(1000, 1, 5)).isBetween(1000, 2000);
+        assertThat(progression.scale(1000, 1, 5)).isLessThan(progression.scale(1000, 1, 6));
+    }
+
+    @Test
+    void indexOf() throws IOException {
+        List<HeroTypeData> heroes = TestData.staticData().getHeroTypes();
+        ChampionStatColumns columns = ChampionStatColumns.fromHeroTypes(heroes);
+
+        assertThat(columns.indexOf(heroes.get(3).getId())).isEqualTo(3);
+        assertThat(columns.indexOf(-1)).isEqualTo(-1);
+    }
+
+    @Test
+    void invalidProgressionPoint() {
+        assertThatThrownBy(() -> progression.scale(1000, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> progression.scale(1000, 7, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> progression.scale(1000, 2, 21)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> progression.scale(1000, 2, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
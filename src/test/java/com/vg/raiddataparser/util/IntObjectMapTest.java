@@ -0,0 +1,65 @@
+package com.vg.raiddataparser.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IntObjectMapTest {
+
+    @Test
+    void putGetAndReplace() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.put(0, "zero")).isNull();
+        assertThat(map.put(-5, "minus five")).isNull();
+        assertThat(map.put(0, "ZERO")).isEqualTo("zero");
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get(0)).isEqualTo("ZERO");
+        assertThat(map.get(-5)).isEqualTo("minus five");
+        assertThat(map.get(1)).isNull();
+        assertThat(map.containsKey(-5)).isTrue();
+        assertThat(map.containsKey(5)).isFalse();
+    }
+
+    @Test
+    void putIfAbsentKeepsFirstValue() {
+        IntObjectMap<String> map = new IntObjectMap<>(1);
+
+        assertThat(map.putIfAbsent(7, "first")).isNull();
+        assertThat(map.putIfAbsent(7, "second")).isEqualTo("first");
+        assertThat(map.get(7)).isEqualTo("first");
+        assertThat(map.size()).isEqualTo(1);
+    }
+
+    @Test
+    void sameContentAsHashMapAfterResizes() {
+        IntObjectMap<Integer> map = new IntObjectMap<>(1);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            // Consecutive IDs (skill IDs) and random keys, with collisions
+            int key = i % 2 == 0 ? i * 10 : random.nextInt(5_000);
+            assertThat(map.put(key, i)).isEqualTo(expected.put(key, i));
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertThat(map.get(entry.getKey())).isEqualTo(entry.getValue());
+        }
+    }
+
+    @Test
+    void nullValuesNotAllowed() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+
+        assertThatThrownBy(() -> map.put(1, null)).isInstanceOf(NullPointerException.class);
+    }
+}
@@ -0,0 +1,52 @@
+package com.vg.raiddataparser.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    @Test
+    void burstUpToCapacityWithoutWaiting() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(5, 1, TimeUnit.HOURS);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.acquire()).isZero();
+        }
+        assertThat(bucket.available()).isLessThan(1);
+    }
+
+    @Test
+    void waitsForRefillWhenEmpty() throws InterruptedException {
+        // One token every 20 ms
+        TokenBucket bucket = new TokenBucket(50, 1, TimeUnit.SECONDS);
+        bucket.drain();
+
+        long start = System.nanoTime();
+        long waited = bucket.acquire();
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(waited).isPositive();
+        assertThat(elapsed).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(15));
+    }
+
+    @Test
+    void refillCappedAtCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(2, 1, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(20);
+
+        assertThat(bucket.available()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1, TimeUnit.SECONDS))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0, TimeUnit.SECONDS))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}